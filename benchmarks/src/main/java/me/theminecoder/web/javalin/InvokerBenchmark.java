@@ -0,0 +1,84 @@
+package me.theminecoder.web.javalin;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link RouteInvoker} call alone, with one route or several routes of mixed arity sharing the call
+ * site the way they do in an app. Lives in the library package as the invoker isn't public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvokerBenchmark {
+
+    public static class Routes {
+
+        public Object first(Object a) {
+            return a;
+        }
+
+        public Object second(Object a) {
+            return a;
+        }
+
+        public Object third(Object a) {
+            return a;
+        }
+
+        public Object none() {
+            return this;
+        }
+
+        public Object two(Object a, Object b) {
+            return b;
+        }
+
+        public Object three(Object a, Object b, Object c) {
+            return c;
+        }
+
+        public void nothing(Object a) {
+        }
+
+        public Object four(Object a, Object b, Object c, Object d) {
+            return d;
+        }
+    }
+
+    private static final String[] METHODS = {"first", "second", "third", "none", "two", "three", "nothing", "four"};
+
+    @Param({"1", "8"})
+    public int routes;
+
+    private final Routes controller = new Routes();
+    private final Object[] args = {1, 2, 3, 4};
+    private RouteInvoker[] invokers;
+    private int next;
+
+    @Setup
+    public void setup() {
+        invokers = new RouteInvoker[routes];
+        for (int i = 0; i < routes; i++) {
+            for (Method method : Routes.class.getMethods()) {
+                if (method.getName().equals(METHODS[i])) invokers[i] = RouteInvoker.create(method);
+            }
+            if (invokers[i].getStrategy() != InvocationStrategy.LAMBDA) {
+                throw new IllegalStateException(METHODS[i] + " isn't invoked through a lambda");
+            }
+        }
+    }
+
+    @Benchmark
+    public Object invoke() throws Throwable {
+        RouteInvoker invoker = invokers[next];
+        if (++next == routes) next = 0;
+        return invoker.invoke(controller, args);
+    }
+
+}
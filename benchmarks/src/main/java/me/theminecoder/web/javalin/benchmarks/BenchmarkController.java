@@ -0,0 +1,151 @@
+package me.theminecoder.web.javalin.benchmarks;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.View;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.methods.POST;
+import me.theminecoder.web.javalin.annotations.parameters.*;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.NotNull;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Range;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Regex;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Controller(value = "bench", scope = Controller.Scope.SINGLETON)
+public class BenchmarkController {
+
+    private static final byte[] BYTES = "ok".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The same work as the controller routes, registered as plain Javalin handlers.
+     */
+    public static void rawString(Context ctx) {
+        ctx.result("ok");
+    }
+
+    public static void rawQuery(Context ctx) {
+        ctx.result(ctx.queryParam("a"));
+    }
+
+    public static void rawJson(Context ctx) {
+        ctx.json(new Payload("bench", 1));
+    }
+
+    @GET("params0")
+    public String params0() {
+        return "ok";
+    }
+
+    @GET("params1")
+    public String params1(@Query("a") String a) {
+        return a;
+    }
+
+    @GET("params5")
+    public String params5(@Query("a") String a, @Query("b") String b, @Query("c") String c, @Query("d") String d, @Query("e") String e) {
+        return a;
+    }
+
+    @GET("params10")
+    public String params10(@Query("a") String a, @Query("b") String b, @Query("c") String c, @Query("d") String d, @Query("e") String e,
+                           @Query("f") String f, @Query("g") String g, @Query("h") String h, @Query("i") String i, @Query("j") String j) {
+        return a;
+    }
+
+    @GET("query")
+    public String query(@Query("id") int id) {
+        return "ok";
+    }
+
+    @GET("path/:id")
+    public String path(@Path("id") int id) {
+        return "ok";
+    }
+
+    @GET("header")
+    public String header(@Header("X-Id") String id) {
+        return "ok";
+    }
+
+    @POST("json-body")
+    public String jsonBody(@JsonBody Payload payload) {
+        return "ok";
+    }
+
+    @POST("form")
+    public String form(@FormMulti("tag") List<String> tags) {
+        return "ok";
+    }
+
+    @GET("not-null")
+    public String notNull(@Query("a") @NotNull String a) {
+        return "ok";
+    }
+
+    @GET("range")
+    public String range(@Query("id") @Range(min = 0, max = 100) int id) {
+        return "ok";
+    }
+
+    @GET("regex")
+    public String regex(@Query("a") @Regex("[a-z]+") String a) {
+        return "ok";
+    }
+
+    @GET("optional")
+    public String optional(@Query("a") Optional<String> a) {
+        return "ok";
+    }
+
+    @GET("json")
+    public Payload json() {
+        return new Payload("bench", 1);
+    }
+
+    @GET("view")
+    public View view() {
+        return new View("bench.mustache").withData("name", "bench").withData("count", 1);
+    }
+
+    @GET("void")
+    public void voidResult() {
+    }
+
+    @GET("input-stream")
+    public InputStream inputStream() {
+        return new ByteArrayInputStream(BYTES);
+    }
+
+    @GET("stream")
+    public Stream<Integer> stream() {
+        return IntStream.range(0, 10).boxed();
+    }
+
+    @GET("future")
+    public CompletableFuture<Payload> future() {
+        return CompletableFuture.completedFuture(new Payload("bench", 1));
+    }
+
+    public static class Payload {
+
+        public String name;
+        public int count;
+
+        public Payload() {
+        }
+
+        public Payload(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+}
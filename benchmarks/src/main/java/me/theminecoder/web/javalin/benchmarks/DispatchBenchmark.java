@@ -0,0 +1,244 @@
+package me.theminecoder.web.javalin.benchmarks;
+
+import io.javalin.Javalin;
+import io.javalin.core.JavalinServlet;
+import me.theminecoder.web.javalin.JavalinController;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching a request through {@link JavalinController} compared to a plain Javalin handler doing the
+ * same work. Requests go through the whole {@link JavalinServlet} without a server, so everything besides the
+ * controller layer is the same for both. Run with {@code -prof gc} for allocations per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        JavalinServlet servlet;
+
+        @Setup
+        public void setup() {
+            Javalin app = Javalin.create().disableStartupBanner();
+            app.get("/raw/string", BenchmarkController::rawString);
+            app.get("/raw/query", BenchmarkController::rawQuery);
+            app.get("/raw/json", BenchmarkController::rawJson);
+            JavalinController.registerController(BenchmarkController.class, app);
+            JavalinController.registerController(PerRequestController.class, app);
+            servlet = app.createServlet();
+        }
+    }
+
+    private JavalinServlet servlet;
+    private final StubResponse response = new StubResponse();
+
+    private StubRequest rawString;
+    private StubRequest rawQuery;
+    private StubRequest rawJson;
+
+    private StubRequest params0;
+    private StubRequest params1;
+    private StubRequest params5;
+    private StubRequest params10;
+    private StubRequest perRequest;
+
+    private StubRequest query;
+    private StubRequest path;
+    private StubRequest header;
+    private StubRequest jsonBody;
+    private StubRequest form;
+
+    private StubRequest notNull;
+    private StubRequest range;
+    private StubRequest regex;
+    private StubRequest optionalPresent;
+    private StubRequest optionalEmpty;
+
+    private StubRequest json;
+    private StubRequest view;
+    private StubRequest voidResult;
+    private StubRequest inputStream;
+    private StubRequest stream;
+    private StubRequest future;
+
+    @Setup
+    public void setup(App app) throws Exception {
+        servlet = app.servlet;
+
+        rawString = request(new StubRequest("GET", "/raw/string"));
+        rawQuery = request(new StubRequest("GET", "/raw/query?a=1"));
+        rawJson = request(new StubRequest("GET", "/raw/json"));
+
+        params0 = request(new StubRequest("GET", "/bench/params0"));
+        params1 = request(new StubRequest("GET", "/bench/params1?a=1"));
+        params5 = request(new StubRequest("GET", "/bench/params5?a=1&b=2&c=3&d=4&e=5"));
+        params10 = request(new StubRequest("GET", "/bench/params10?a=1&b=2&c=3&d=4&e=5&f=6&g=7&h=8&i=9&j=10"));
+        perRequest = request(new StubRequest("GET", "/per-request/params0"));
+
+        query = request(new StubRequest("GET", "/bench/query?id=42"));
+        path = request(new StubRequest("GET", "/bench/path/42"));
+        //@Header currently reads the query string, send both so the benchmark survives that being fixed
+        header = request(new StubRequest("GET", "/bench/header?X-Id=42").header("X-Id", "42"));
+        jsonBody = request(new StubRequest("POST", "/bench/json-body").body("application/json", "{\"name\":\"bench\",\"count\":1}"));
+        form = request(new StubRequest("POST", "/bench/form").body("application/x-www-form-urlencoded", "tag=a&tag=b&tag=c"));
+
+        notNull = request(new StubRequest("GET", "/bench/not-null?a=value"));
+        range = request(new StubRequest("GET", "/bench/range?id=42"));
+        regex = request(new StubRequest("GET", "/bench/regex?a=value"));
+        optionalPresent = request(new StubRequest("GET", "/bench/optional?a=value"));
+        optionalEmpty = request(new StubRequest("GET", "/bench/optional"));
+
+        json = request(new StubRequest("GET", "/bench/json"));
+        view = request(new StubRequest("GET", "/bench/view"));
+        voidResult = request(new StubRequest("GET", "/bench/void"));
+        inputStream = request(new StubRequest("GET", "/bench/input-stream"));
+        stream = request(new StubRequest("GET", "/bench/stream"));
+        future = request(new StubRequest("GET", "/bench/future"));
+    }
+
+    /**
+     * Sends the request once up front, so a broken route fails the run instead of benchmarking an error page.
+     */
+    private StubRequest request(StubRequest request) throws Exception {
+        dispatch(request);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException(request.getMethod() + " " + request.getRequestURI() + " returned " + response.getStatus());
+        }
+        return request;
+    }
+
+    private long dispatch(StubRequest request) throws Exception {
+        response.reset();
+        servlet.service(request.reset(response), response);
+        return response.getBytesWritten();
+    }
+
+    @Benchmark
+    public long rawString() throws Exception {
+        return dispatch(rawString);
+    }
+
+    @Benchmark
+    public long rawQuery() throws Exception {
+        return dispatch(rawQuery);
+    }
+
+    @Benchmark
+    public long rawJson() throws Exception {
+        return dispatch(rawJson);
+    }
+
+    @Benchmark
+    public long params0() throws Exception {
+        return dispatch(params0);
+    }
+
+    @Benchmark
+    public long params1() throws Exception {
+        return dispatch(params1);
+    }
+
+    @Benchmark
+    public long params5() throws Exception {
+        return dispatch(params5);
+    }
+
+    @Benchmark
+    public long params10() throws Exception {
+        return dispatch(params10);
+    }
+
+    @Benchmark
+    public long perRequestScope() throws Exception {
+        return dispatch(perRequest);
+    }
+
+    @Benchmark
+    public long sourceQuery() throws Exception {
+        return dispatch(query);
+    }
+
+    @Benchmark
+    public long sourcePath() throws Exception {
+        return dispatch(path);
+    }
+
+    @Benchmark
+    public long sourceHeader() throws Exception {
+        return dispatch(header);
+    }
+
+    @Benchmark
+    public long sourceJsonBody() throws Exception {
+        return dispatch(jsonBody);
+    }
+
+    @Benchmark
+    public long sourceFormMulti() throws Exception {
+        return dispatch(form);
+    }
+
+    @Benchmark
+    public long validatorNotNull() throws Exception {
+        return dispatch(notNull);
+    }
+
+    @Benchmark
+    public long validatorRange() throws Exception {
+        return dispatch(range);
+    }
+
+    @Benchmark
+    public long validatorRegex() throws Exception {
+        return dispatch(regex);
+    }
+
+    @Benchmark
+    public long optionalPresent() throws Exception {
+        return dispatch(optionalPresent);
+    }
+
+    @Benchmark
+    public long optionalEmpty() throws Exception {
+        return dispatch(optionalEmpty);
+    }
+
+    @Benchmark
+    public long returnJson() throws Exception {
+        return dispatch(json);
+    }
+
+    @Benchmark
+    public long returnView() throws Exception {
+        return dispatch(view);
+    }
+
+    @Benchmark
+    public long returnVoid() throws Exception {
+        return dispatch(voidResult);
+    }
+
+    @Benchmark
+    public long returnInputStream() throws Exception {
+        return dispatch(inputStream);
+    }
+
+    @Benchmark
+    public long returnStream() throws Exception {
+        return dispatch(stream);
+    }
+
+    @Benchmark
+    public long returnFuture() throws Exception {
+        return dispatch(future);
+    }
+
+}
@@ -0,0 +1,18 @@
+package me.theminecoder.web.javalin.benchmarks;
+
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+
+/**
+ * {@link BenchmarkController#params0()} on the default per request scope, to show what creating the controller
+ * costs.
+ */
+@Controller("per-request")
+public class PerRequestController {
+
+    @GET("params0")
+    public String params0() {
+        return "ok";
+    }
+
+}
@@ -0,0 +1,137 @@
+package me.theminecoder.web.javalin.benchmarks;
+
+import io.javalin.Javalin;
+import io.javalin.core.JavalinServlet;
+import me.theminecoder.web.javalin.ControllerRegistry;
+import me.theminecoder.web.javalin.GeneratedController;
+import me.theminecoder.web.javalin.GeneratedRoute;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding a route as the number of routes grows, with every route added to Javalin compared to
+ * {@link Controller#treeDispatch()}. The controllers have thousands of routes that can't be written out, so their
+ * {@link GeneratedController}s are written by hand instead of by the processor, which skips them as they aren't
+ * public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteCountBenchmark {
+
+    // Read by the hand written routes, set before the controller is registered
+    private static int resources;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int routes;
+
+    @Param({"javalin", "tree"})
+    public String dispatch;
+
+    private JavalinServlet servlet;
+    private final StubResponse response = new StubResponse();
+
+    private StubRequest first;
+    private StubRequest last;
+    private StubRequest nested;
+
+    @Setup
+    public void setup() throws Exception {
+        resources = routes;
+        Javalin app = Javalin.create().disableStartupBanner();
+        new ControllerRegistry().registerController(dispatch.equals("tree") ? new Tree() : new Flat(), app);
+        servlet = app.createServlet();
+
+        first = request(new StubRequest("GET", "/api/resource0/42"));
+        last = request(new StubRequest("GET", "/api/resource" + (routes - 1) + "/42"));
+        nested = request(new StubRequest("GET", "/api/resource" + (routes - 1) + "/42/items/7"));
+    }
+
+    /**
+     * Sends the request once up front, so a broken route fails the run instead of benchmarking an error page.
+     */
+    private StubRequest request(StubRequest request) throws Exception {
+        dispatch(request);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException(request.getMethod() + " " + request.getRequestURI() + " returned " + response.getStatus());
+        }
+        return request;
+    }
+
+    private long dispatch(StubRequest request) throws Exception {
+        response.reset();
+        servlet.service(request.reset(response), response);
+        return response.getBytesWritten();
+    }
+
+    @Benchmark
+    public long firstRoute() throws Exception {
+        return dispatch(first);
+    }
+
+    @Benchmark
+    public long lastRoute() throws Exception {
+        return dispatch(last);
+    }
+
+    @Benchmark
+    public long lastNestedRoute() throws Exception {
+        return dispatch(nested);
+    }
+
+    /**
+     * Two routes per resource, {@code /api/resource<i>/:id} and {@code /api/resource<i>/:id/items/:item}.
+     */
+    private static List<GeneratedRoute> routes(Class<?> controllerClass) {
+        List<GeneratedRoute> generated = new ArrayList<>(resources * 2);
+        for (int i = 0; i < resources; i++) {
+            generated.add(GeneratedRoute.of(GET.class, "/api/resource" + i + "/:id", controllerClass, "resource",
+                    new Class<?>[]{String.class}, (controller, args) -> ((Flat) controller).resource((String) args[0])));
+            generated.add(GeneratedRoute.of(GET.class, "/api/resource" + i + "/:id/items/:item", controllerClass, "item",
+                    new Class<?>[]{String.class, String.class}, (controller, args) -> ((Flat) controller).item((String) args[0], (String) args[1])));
+        }
+        return generated;
+    }
+
+    @Controller("api")
+    static class Flat {
+
+        public String resource(@Path("id") String id) {
+            return id;
+        }
+
+        public String item(@Path("id") String id, @Path("item") String item) {
+            return item;
+        }
+    }
+
+    @Controller(value = "api", treeDispatch = true)
+    static class Tree extends Flat {
+    }
+
+    public static final class Flat_JavalinRoutes implements GeneratedController {
+
+        @Override
+        public List<GeneratedRoute> routes() {
+            return RouteCountBenchmark.routes(Flat.class);
+        }
+    }
+
+    public static final class Tree_JavalinRoutes implements GeneratedController {
+
+        @Override
+        public List<GeneratedRoute> routes() {
+            return RouteCountBenchmark.routes(Tree.class);
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package me.theminecoder.web.javalin.benchmarks;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A request that can be fed straight into a {@code JavalinServlet} over and over without Jetty. Only what Javalin
+ * and the mappers read is implemented, everything else answers null/0/false.
+ */
+public class StubRequest extends HttpServletRequestWrapper {
+
+    private static final HttpServletRequest DEFAULTS = (HttpServletRequest) Proxy.newProxyInstance(StubRequest.class.getClassLoader(),
+            new Class[]{HttpServletRequest.class}, (proxy, method, args) -> defaultValue(method.getReturnType()));
+
+    private final String method;
+    private final String uri;
+    private final String queryString;
+    private final Map<String, String> headers = new HashMap<>();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private byte[] body = new byte[0];
+    private String contentType;
+    private ServletResponse asyncResponse;
+
+    public StubRequest(String method, String uri) {
+        super(DEFAULTS);
+        int query = uri.indexOf('?');
+        this.method = method;
+        this.uri = query == -1 ? uri : uri.substring(0, query);
+        this.queryString = query == -1 ? null : uri.substring(query + 1);
+    }
+
+    public StubRequest header(String name, String value) {
+        headers.put(name.toLowerCase(Locale.ROOT), value);
+        return this;
+    }
+
+    public StubRequest body(String contentType, String body) {
+        this.contentType = contentType;
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * Clears what the previous dispatch left behind, so each call starts from a fresh request. Async results are
+     * only dispatched from already completed futures in the benchmarks, so the async context hands out the given
+     * response and completes inline.
+     */
+    public StubRequest reset(ServletResponse response) {
+        attributes.clear();
+        asyncResponse = response;
+        return this;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer("http://localhost").append(uri);
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public int getServerPort() {
+        return 80;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        String value = getHeader(name);
+        return Collections.enumeration(value == null ? Collections.emptyList() : Collections.singletonList(value));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "UTF-8";
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, asyncResponse);
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+        return (AsyncContext) Proxy.newProxyInstance(StubRequest.class.getClassLoader(), new Class[]{AsyncContext.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRequest":
+                    return request;
+                case "getResponse":
+                    return response;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return true;
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+
+}
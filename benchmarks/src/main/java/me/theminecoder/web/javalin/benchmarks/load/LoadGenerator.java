@@ -0,0 +1,131 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed loop load: each thread sends the next request as soon as it has read the previous response, over a kept
+ * alive connection. Latencies are recorded per thread and only merged once the run is over.
+ */
+public class LoadGenerator {
+
+    private final String baseUrl;
+    private final int threads;
+
+    public LoadGenerator(String baseUrl, int threads) {
+        this.baseUrl = baseUrl;
+        this.threads = threads;
+    }
+
+    public LoadResult run(Scenario scenario, long warmup, long duration, TimeUnit unit) throws InterruptedException {
+        URL url;
+        try {
+            url = new URL(baseUrl + scenario.getPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid scenario path " + scenario.getPath(), e);
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + unit.toNanos(warmup);
+        long measureUntil = measureFrom + unit.toNanos(duration);
+
+        Worker[] workers = new Worker[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(scenario, url, measureFrom, measureUntil, done);
+            Thread thread = new Thread(workers[i], "load-" + scenario.getName() + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            total += worker.count;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        return new LoadResult(scenario, latencies, errors, measureUntil - measureFrom);
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final Scenario scenario;
+        private final URL url;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final CountDownLatch done;
+        private final byte[] buffer = new byte[8192];
+
+        private long[] latencies = new long[1 << 14];
+        private int count;
+        private long errors;
+
+        private Worker(Scenario scenario, URL url, long measureFrom, long measureUntil, CountDownLatch done) {
+            this.scenario = scenario;
+            this.url = url;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long now;
+                while ((now = System.nanoTime()) < measureUntil) {
+                    boolean ok = send();
+                    long end = System.nanoTime();
+                    if (now < measureFrom) continue;
+
+                    if (!ok) errors++;
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = end - now;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private boolean send() {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setRequestMethod(scenario.getMethod());
+                if (scenario.getBody() != null) {
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", scenario.getContentType());
+                    connection.setFixedLengthStreamingMode(scenario.getBody().length);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(scenario.getBody());
+                    }
+                }
+
+                int status = connection.getResponseCode();
+                //the body has to be read to the end for the connection to be reused
+                try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+                    if (in != null) {
+                        while (in.read(buffer) != -1) {
+                            //discard
+                        }
+                    }
+                }
+                return status < 400;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import java.util.Arrays;
+
+/**
+ * Throughput and exact latency percentiles of one measured scenario run.
+ */
+public final class LoadResult {
+
+    private final Scenario scenario;
+    private final long[] latencies;
+    private final long errors;
+    private final long elapsedNanos;
+
+    LoadResult(Scenario scenario, long[] latencies, long errors, long elapsedNanos) {
+        this.scenario = scenario;
+        this.latencies = latencies;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        Arrays.sort(this.latencies);
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public long getRequests() {
+        return latencies.length;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return latencies.length / (elapsedNanos / 1_000_000_000D);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     */
+    public double getLatencyMillis(double percentile) {
+        if (latencies.length == 0) return 0;
+        //nearest rank, rounded first so e.g. 99.9% of 1000 is rank 999 rather than 999.0000000000001
+        int index = (int) Math.ceil(Math.round(latencies.length * percentile * 1000) / 100_000D) - 1;
+        return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1_000_000D;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s %10.0f req/s  p50 %8.3fms  p99 %8.3fms  p999 %8.3fms  %d requests, %d errors",
+                scenario.getName(), getThroughput(), getLatencyMillis(50), getLatencyMillis(99), getLatencyMillis(99.9), getRequests(), errors);
+    }
+
+}
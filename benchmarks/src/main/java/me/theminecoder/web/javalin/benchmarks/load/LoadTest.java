@@ -0,0 +1,92 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.JavalinController;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end load test. Starts {@link LoadTestController} on loopback, drives each scenario with a
+ * {@link LoadGenerator} and fails if throughput or p99 latency is worse than the stored baselines.
+ * <p>
+ * Run with {@code mvn -P load-test verify}. Tunable with system properties:
+ * {@code load.threads}, {@code load.warmup} and {@code load.duration} (seconds), {@code load.scenarios} (comma
+ * separated names) and {@code load.baselines} (a properties file replacing the bundled baselines).
+ */
+public class LoadTest {
+
+    private static final String BASELINES = "load-test-baselines.properties";
+
+    private static final List<Scenario> SCENARIOS = Arrays.asList(
+            Scenario.post("json-echo", "/load/echo", "application/json", "{\"name\":\"load\",\"count\":3,\"tags\":[\"a\",\"b\",\"c\"]}"),
+            Scenario.get("view", "/load/view?name=load"),
+            Scenario.get("validated-query", "/load/items?page=3&size=20&sort=name"),
+            Scenario.get("filters", "/load/filtered/ping")
+    );
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("load.threads", 8);
+        long warmup = Long.getLong("load.warmup", 5);
+        long duration = Long.getLong("load.duration", 10);
+        Set<String> only = new HashSet<>(Arrays.asList(System.getProperty("load.scenarios", "").split(",")));
+        only.remove("");
+        Properties baselines = loadBaselines(System.getProperty("load.baselines"));
+
+        Javalin app = Javalin.create().disableStartupBanner();
+        JavalinController.registerController(LoadTestController.class, app);
+        app.start(0);
+
+        List<String> failures = new ArrayList<>();
+        try {
+            LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + app.port(), threads);
+            System.out.println("Load test with " + threads + " threads, " + warmup + "s warmup and " + duration + "s per scenario");
+            for (Scenario scenario : SCENARIOS) {
+                if (!only.isEmpty() && !only.contains(scenario.getName())) continue;
+
+                LoadResult result = generator.run(scenario, warmup, duration, TimeUnit.SECONDS);
+                System.out.println(result);
+                failures.addAll(check(result, baselines));
+            }
+        } finally {
+            app.stop();
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            throw new IllegalStateException(failures.size() + " load test baseline(s) not met");
+        }
+    }
+
+    static List<String> check(LoadResult result, Properties baselines) {
+        String name = result.getScenario().getName();
+        List<String> failures = new ArrayList<>();
+        if (result.getRequests() == 0 || result.getErrors() > 0) {
+            failures.add(name + " had " + result.getErrors() + " errors in " + result.getRequests() + " requests");
+        }
+
+        String minThroughput = baselines.getProperty(name + ".min-throughput");
+        if (minThroughput != null && result.getThroughput() < Double.parseDouble(minThroughput)) {
+            failures.add(String.format("%s throughput %.0f req/s is below the baseline of %s req/s", name, result.getThroughput(), minThroughput));
+        }
+
+        String maxP99 = baselines.getProperty(name + ".max-p99-ms");
+        if (maxP99 != null && result.getLatencyMillis(99) > Double.parseDouble(maxP99)) {
+            failures.add(String.format("%s p99 %.3fms is above the baseline of %sms", name, result.getLatencyMillis(99), maxP99));
+        }
+        return failures;
+    }
+
+    private static Properties loadBaselines(String file) throws IOException {
+        Properties baselines = new Properties();
+        try (InputStream in = file != null ? new FileInputStream(file) : LoadTest.class.getClassLoader().getResourceAsStream(BASELINES)) {
+            if (in == null) throw new IllegalStateException("Missing " + BASELINES);
+            baselines.load(in);
+        }
+        return baselines;
+    }
+
+}
@@ -0,0 +1,86 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.View;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.methods.POST;
+import me.theminecoder.web.javalin.annotations.parameters.JsonBody;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import me.theminecoder.web.javalin.annotations.parameters.RequestContext;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.NotNull;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Range;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes shaped like a typical app for {@link LoadTest}, one per scenario.
+ */
+@Controller("load")
+public class LoadTestController {
+
+    @Before("filtered/*")
+    public void beforeFiltered(@RequestContext Context ctx) {
+        ctx.attribute("load-start", System.nanoTime());
+    }
+
+    @After("filtered/*")
+    public void afterFiltered(@RequestContext Context ctx) {
+        Long start = ctx.attribute("load-start");
+        if (start != null) ctx.header("X-Handled-Nanos", Long.toString(System.nanoTime() - start));
+    }
+
+    @GET("filtered/ping")
+    public String ping() {
+        return "pong";
+    }
+
+    @POST("echo")
+    public Payload echo(@JsonBody Payload payload) {
+        return payload;
+    }
+
+    @GET("view")
+    public View view(@Query("name") @NotNull String name) {
+        return new View("load.mustache").withData("name", name).withData("items", items(1, 10));
+    }
+
+    @GET("items")
+    public List<Item> items(@Query("page") @Range(min = 1, max = 1000) int page,
+                            @Query("size") @Range(min = 1, max = 100) int size,
+                            @Query("sort") @Regex("[a-z]+") @NotNull String sort) {
+        return items(page, size);
+    }
+
+    private static List<Item> items(int page, int size) {
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int id = (page - 1) * size + i;
+            items.add(new Item(id, "item-" + id));
+        }
+        return items;
+    }
+
+    public static class Payload {
+
+        public String name;
+        public int count;
+        public List<String> tags;
+    }
+
+    public static class Item {
+
+        public int id;
+        public String name;
+
+        public Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single request the load generator sends over and over.
+ */
+public final class Scenario {
+
+    private final String name;
+    private final String method;
+    private final String path;
+    private final String contentType;
+    private final byte[] body;
+
+    private Scenario(String name, String method, String path, String contentType, byte[] body) {
+        this.name = name;
+        this.method = method;
+        this.path = path;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public static Scenario get(String name, String path) {
+        return new Scenario(name, "GET", path, null, null);
+    }
+
+    public static Scenario post(String name, String path, String contentType, String body) {
+        return new Scenario(name, "POST", path, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+}
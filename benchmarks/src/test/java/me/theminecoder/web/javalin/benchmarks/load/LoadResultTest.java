@@ -0,0 +1,72 @@
+package me.theminecoder.web.javalin.benchmarks.load;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoadResultTest {
+
+    private static final Scenario SCENARIO = Scenario.get("test", "/test");
+
+    /**
+     * Requests taking 1ms to {@code requests}ms, in shuffled order, over one second.
+     */
+    private static LoadResult result(int requests, long errors) {
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            latencies[i] = TimeUnit.MILLISECONDS.toNanos((i * 37L) % requests + 1);
+        }
+        return new LoadResult(SCENARIO, latencies, errors, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static Properties baselines(String... entries) {
+        Properties baselines = new Properties();
+        for (int i = 0; i < entries.length; i += 2) baselines.setProperty(entries[i], entries[i + 1]);
+        return baselines;
+    }
+
+    @Test
+    public void percentilesAreExact() {
+        LoadResult result = result(1000, 0);
+        assertEquals(1, result.getLatencyMillis(0), 0);
+        assertEquals(500, result.getLatencyMillis(50), 0);
+        assertEquals(990, result.getLatencyMillis(99), 0);
+        assertEquals(999, result.getLatencyMillis(99.9), 0);
+        assertEquals(1000, result.getLatencyMillis(100), 0);
+    }
+
+    @Test
+    public void throughputIsRequestsPerSecond() {
+        assertEquals(1000, result(1000, 0).getThroughput(), 0.001);
+    }
+
+    @Test
+    public void emptyRunReportsZeroLatency() {
+        assertEquals(0, result(0, 0).getLatencyMillis(99), 0);
+    }
+
+    @Test
+    public void passesWithinBaselines() {
+        assertTrue(LoadTest.check(result(1000, 0), baselines("test.min-throughput", "900", "test.max-p99-ms", "995")).isEmpty());
+        assertTrue(LoadTest.check(result(1000, 0), new Properties()).isEmpty());
+    }
+
+    @Test
+    public void failsOutsideBaselines() {
+        List<String> failures = LoadTest.check(result(1000, 0), baselines("test.min-throughput", "2000", "test.max-p99-ms", "100"));
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0).contains("throughput"));
+        assertTrue(failures.get(1).contains("p99"));
+    }
+
+    @Test
+    public void failsOnErrorsOrNoRequests() {
+        assertEquals(1, LoadTest.check(result(1000, 1), new Properties()).size());
+        assertEquals(1, LoadTest.check(result(0, 0), new Properties()).size());
+    }
+
+}
@@ -0,0 +1,207 @@
+package me.theminecoder.web.javalin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.javalin.BadRequestResponse;
+import io.javalin.Context;
+import io.javalin.Handler;
+import io.javalin.Javalin;
+import io.javalin.core.JavalinServlet;
+import io.javalin.json.JavalinJackson;
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Handler for {@link ControllerRegistry#registerBatchEndpoint}. Kept apart from {@link ControllerRegistry} so Jackson
+ * only has to be on the classpath when the endpoint is used.
+ * <p>
+ * The body is a JSON array of requests, each an object with a {@code method} (GET by default), a {@code path}
+ * that may carry a query string, an optional {@code query} object of names to a value or an array of values, an
+ * optional {@code headers} object and an optional {@code body}, sent as is when it's a string and as JSON
+ * otherwise. The response is a JSON array of {@code {status, headers, body}} objects in the same order, where
+ * JSON bodies are embedded, text bodies are strings and anything else is base64.
+ * <p>
+ * Sub-requests only get the headers they declare and a few describing the client, see {@link SubExchange}, so
+ * credentials and cookies of the batch request have to be repeated for each sub-request that needs them.
+ */
+final class BatchEndpoint implements Handler {
+
+    private final Javalin app;
+    private final Executor executor;
+    private final int maxRequests;
+    private final long maxBodySize;
+    private final Supplier<? extends Collection<RegisteredRoute>> routes;
+    private final Map<String, Pattern> routePatterns = new ConcurrentHashMap<>();
+    private volatile JavalinServlet servlet;
+
+    BatchEndpoint(Javalin app, Executor executor, int maxRequests, long maxBodySize, Supplier<? extends Collection<RegisteredRoute>> routes) {
+        this.app = app;
+        this.executor = executor;
+        this.maxRequests = maxRequests;
+        this.maxBodySize = maxBodySize;
+        this.routes = routes;
+    }
+
+    @Override
+    public void handle(Context ctx) {
+        ObjectMapper mapper = JavalinJackson.getObjectMapper();
+        JsonNode requests;
+        try (InputStream body = JacksonBodyReader.bodyStream(ctx, maxBodySize)) {
+            requests = mapper.readTree(body);
+        } catch (IOException e) {
+            throw new BadRequestResponse("Batch body must be a JSON array of requests");
+        }
+        if (requests == null || !requests.isArray()) {
+            throw new BadRequestResponse("Batch body must be a JSON array of requests");
+        }
+        if (requests.size() > maxRequests) {
+            throw new BadRequestResponse("At most " + maxRequests + " requests can be batched");
+        }
+
+        List<SubExchange> exchanges = new ArrayList<>(requests.size());
+        for (JsonNode request : requests) {
+            exchanges.add(exchange(ctx, mapper, request));
+        }
+
+        JavalinServlet servlet = servlet();
+        List<CompletableFuture<SubExchange>> responses = new ArrayList<>(exchanges.size());
+        for (SubExchange exchange : exchanges) {
+            if (!isControllerRoute(exchange.getRequest().getMethod(), exchange.getRequest().getPathInfo())) {
+                responses.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+
+            CompletableFuture<SubExchange> response = new CompletableFuture<>();
+            try {
+                executor.execute(() -> exchange.run(servlet).whenComplete((done, error) -> {
+                    if (error != null) response.completeExceptionally(error);
+                    else response.complete(done);
+                }));
+            } catch (Throwable e) {
+                response.completeExceptionally(e);
+            }
+            responses.add(response);
+        }
+
+        ctx.contentType("application/json");
+        ctx.result(CompletableFuture.allOf(responses.stream().map(response -> response.exceptionally(e -> null)).toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    ArrayNode body = mapper.createArrayNode();
+                    for (CompletableFuture<SubExchange> response : responses) {
+                        body.add(response.isCompletedExceptionally() ? error(mapper, 500) : result(mapper, response.join()));
+                    }
+                    return body.toString();
+                }));
+    }
+
+    private JavalinServlet servlet() {
+        JavalinServlet servlet = this.servlet;
+        if (servlet == null) this.servlet = servlet = app.createServlet();
+        return servlet;
+    }
+
+    private static SubExchange exchange(Context ctx, ObjectMapper mapper, JsonNode request) {
+        if (!request.isObject() || !request.path("path").isTextual() || !request.path("path").asText().startsWith("/")) {
+            throw new BadRequestResponse("Every batched request needs an absolute path");
+        }
+
+        String method = request.path("method").asText("GET").toUpperCase(Locale.ROOT);
+        String path = request.path("path").asText();
+        StringBuilder query = new StringBuilder();
+        int queryStart = path.indexOf('?');
+        if (queryStart >= 0) {
+            query.append(path, queryStart + 1, path.length());
+            path = path.substring(0, queryStart);
+        }
+        Iterator<Map.Entry<String, JsonNode>> queryParams = request.path("query").fields();
+        while (queryParams.hasNext()) {
+            Map.Entry<String, JsonNode> param = queryParams.next();
+            for (JsonNode value : param.getValue().isArray() ? param.getValue() : Collections.singletonList(param.getValue())) {
+                if (query.length() > 0) query.append('&');
+                query.append(encode(param.getKey())).append('=').append(encode(value.asText()));
+            }
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        request.path("headers").fields().forEachRemaining(header -> headers.put(header.getKey(), header.getValue().asText()));
+
+        JsonNode bodyNode = request.path("body");
+        byte[] body = new byte[0];
+        if (bodyNode.isTextual()) {
+            body = bodyNode.asText().getBytes(StandardCharsets.UTF_8);
+            headers.putIfAbsent("Content-Type", "text/plain; charset=utf-8");
+        } else if (!bodyNode.isMissingNode() && !bodyNode.isNull()) {
+            body = bodyNode.toString().getBytes(StandardCharsets.UTF_8);
+            headers.putIfAbsent("Content-Type", "application/json");
+        }
+
+        return new SubExchange(ctx.req, ctx.res, method, path, query.length() > 0 ? query.toString() : null, headers, body);
+    }
+
+    private boolean isControllerRoute(String method, String path) {
+        for (RegisteredRoute route : routes.get()) {
+            if (route.getRouteMethodType() == Before.class || route.getRouteMethodType() == After.class) continue;
+            if (!route.getRouteMethodType().getSimpleName().equals(method) && !(route.isAnsweringHead() && method.equals("HEAD"))) continue;
+            if (routePatterns.computeIfAbsent(route.getPath(), PathPatterns::compile).matcher(path).matches()) return true;
+        }
+        return false;
+    }
+
+    private static ObjectNode result(ObjectMapper mapper, SubExchange exchange) {
+        if (exchange == null) return error(mapper, 404);
+
+        ObjectNode result = mapper.createObjectNode();
+        result.put("status", exchange.getStatus());
+        ObjectNode headers = result.putObject("headers");
+        exchange.getHeaders().forEach(headers::put);
+
+        byte[] body = exchange.getBody();
+        String contentType = exchange.getContentType() != null ? exchange.getContentType().toLowerCase(Locale.ROOT) : "";
+        if (body.length == 0) {
+            result.putNull("body");
+        } else if (contentType.contains("json")) {
+            try {
+                result.set("body", mapper.readTree(body));
+            } catch (IOException e) {
+                result.put("body", new String(body, exchange.getCharset()));
+            }
+        } else if (contentType.isEmpty() || contentType.startsWith("text/") || contentType.contains("xml") || contentType.contains("javascript")) {
+            result.put("body", new String(body, exchange.getCharset()));
+        } else {
+            result.put("body", body);
+        }
+        return result;
+    }
+
+    private static ObjectNode error(ObjectMapper mapper, int status) {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("status", status);
+        result.putObject("headers");
+        result.putNull("body");
+        return result;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package me.theminecoder.web.javalin;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * A response that is only built when the client's copy is out of date. The version or last modified time is checked
+ * against {@code If-None-Match}/{@code If-Modified-Since} on GET/HEAD requests, answering 304 without calling the
+ * body supplier when it's current. Otherwise the supplied body is sent like any other controller response.
+ */
+public final class ConditionalResponse {
+
+    private final String etag;
+    private final Instant lastModified;
+    private final Supplier<?> body;
+
+    private ConditionalResponse(String etag, Instant lastModified, Supplier<?> body) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.body = body;
+    }
+
+    /**
+     * @param version anything that changes whenever the body would, e.g. a row version or content hash
+     */
+    public static ConditionalResponse version(Object version, Supplier<?> body) {
+        return new ConditionalResponse(ETags.quote(String.valueOf(version)), null, body);
+    }
+
+    public static ConditionalResponse lastModified(Instant lastModified, Supplier<?> body) {
+        return new ConditionalResponse(null, lastModified, body);
+    }
+
+    public ConditionalResponse withLastModified(Instant lastModified) {
+        return new ConditionalResponse(etag, lastModified, body);
+    }
+
+    String getETag() {
+        return etag;
+    }
+
+    Instant getLastModified() {
+        return lastModified;
+    }
+
+    Supplier<?> getBody() {
+        return body;
+    }
+
+}
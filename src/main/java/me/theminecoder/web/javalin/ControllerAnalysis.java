@@ -0,0 +1,50 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The compiled routes of a controller, in registration order, before anything has been added to an app.
+ */
+final class ControllerAnalysis {
+
+    final Class<?> controllerClass;
+    final Controller controller;
+    final List<Route> routes;
+    final long analysisNanos;
+
+    ControllerAnalysis(Class<?> controllerClass, Controller controller, List<Route> routes, long analysisNanos) {
+        this.controllerClass = controllerClass;
+        this.controller = controller;
+        this.routes = routes;
+        this.analysisNanos = analysisNanos;
+    }
+
+    static final class Route {
+
+        final Class<? extends Annotation> routeMethodType;
+        final String path;
+        final Method method;
+        final RoutePlan plan;
+        final Executor executor;
+
+        Route(Class<? extends Annotation> routeMethodType, String path, Method method, RoutePlan plan, Executor executor) {
+            this.routeMethodType = routeMethodType;
+            this.path = path;
+            this.method = method;
+            this.plan = plan;
+            this.executor = executor;
+        }
+
+        boolean isFilter() {
+            return routeMethodType == Before.class || routeMethodType == After.class;
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package me.theminecoder.web.javalin;
+
+/**
+ * Creates controller instances for controllers registered by class, e.g. to hand construction off to a DI
+ * container. Without one, controllers are created through their public no-args constructor.
+ */
+@FunctionalInterface
+public interface ControllerFactory {
+
+    public Object create(Class<?> controllerClass) throws Exception;
+
+}
@@ -0,0 +1,95 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.annotations.Controller;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Hands out the controller instance a request should be dispatched to, according to the controller's scope.
+ */
+abstract class ControllerProvider {
+
+    private static final String CONTROLLER_ATTRIBUTE = "controller";
+
+    abstract Object get(Context ctx);
+
+    static ControllerProvider create(Class<?> controllerClass, Object controllerObject, Controller.Scope scope, ControllerFactory factory) {
+        if (controllerObject != null) {
+            return singleton(controllerObject);
+        }
+
+        ControllerFactory creator = factory != null ? factory : constructorFactory(controllerClass);
+        switch (scope) {
+            case SINGLETON:
+                return singleton(newController(creator, controllerClass));
+            case POOLED:
+                ThreadLocal<Object> pool = ThreadLocal.withInitial(() -> newController(creator, controllerClass));
+                return new ControllerProvider() {
+                    @Override
+                    Object get(Context ctx) {
+                        return pool.get();
+                    }
+                };
+            default:
+                return new ControllerProvider() {
+                    @Override
+                    Object get(Context ctx) {
+                        Object controller = ctx.attribute(CONTROLLER_ATTRIBUTE);
+                        if (!controllerClass.isInstance(controller)) {
+                            controller = newController(creator, controllerClass);
+                            ctx.attribute(CONTROLLER_ATTRIBUTE, controller);
+                        }
+                        return controller;
+                    }
+                };
+        }
+    }
+
+    static ControllerProvider singleton(Object controller) {
+        return new ControllerProvider() {
+            @Override
+            Object get(Context ctx) {
+                return controller;
+            }
+        };
+    }
+
+    private static ControllerFactory constructorFactory(Class<?> controllerClass) {
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup()
+                    .unreflectConstructor(controllerClass.getConstructor())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new JavalinControllerException("Controller " + controllerClass.getName() + " needs a public no-args constructor or a ControllerFactory", e);
+        }
+
+        return type -> {
+            try {
+                return constructor.invokeExact();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JavalinControllerException(e);
+            }
+        };
+    }
+
+    private static Object newController(ControllerFactory factory, Class<?> controllerClass) {
+        Object controller;
+        try {
+            controller = factory.create(controllerClass);
+        } catch (Exception e) {
+            throw new JavalinControllerException("Error creating controller object", e);
+        }
+
+        if (!controllerClass.isInstance(controller)) {
+            throw new JavalinControllerException("Controller factory returned " + controller + " for " + controllerClass.getName());
+        }
+        return controller;
+    }
+
+}
@@ -0,0 +1,50 @@
+package me.theminecoder.web.javalin;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What registering a discovered controller registered and how long it took.
+ */
+public class ControllerRegistration {
+
+    private Class<?> controllerClass;
+    private List<RegisteredRoute> routes;
+    private long analysisNanos;
+    private long registrationNanos;
+
+    ControllerRegistration(Class<?> controllerClass, List<RegisteredRoute> routes, long analysisNanos, long registrationNanos) {
+        this.controllerClass = controllerClass;
+        this.routes = routes;
+        this.analysisNanos = analysisNanos;
+        this.registrationNanos = registrationNanos;
+    }
+
+    public Class<?> getControllerClass() {
+        return controllerClass;
+    }
+
+    public List<RegisteredRoute> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Time spent reading the controller's methods and compiling its routes, which runs in parallel with other
+     * controllers.
+     */
+    public long getAnalysisTime(TimeUnit unit) {
+        return unit.convert(analysisNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time spent creating the controller and adding its routes to the app.
+     */
+    public long getRegistrationTime(TimeUnit unit) {
+        return unit.convert(registrationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return controllerClass.getName() + ": " + routes.size() + " routes, analysed in " + getAnalysisTime(TimeUnit.MICROSECONDS) + "us, registered in " + getRegistrationTime(TimeUnit.MICROSECONDS) + "us";
+    }
+}
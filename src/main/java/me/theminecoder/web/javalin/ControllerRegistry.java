@@ -0,0 +1,978 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.*;
+import io.javalin.json.JavalinJson;
+import io.javalin.rendering.JavalinRenderer;
+import me.theminecoder.web.javalin.annotations.Async;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.*;
+import me.theminecoder.web.javalin.annotations.parameters.*;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.NotNull;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Range;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Regex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Controllers, routes and everything used to register them: parameter mappers, validators, converters and
+ * executors. Each registry starts out with the built in mappers, validators and converters and is independent of
+ * every other, so several apps in one JVM can each have their own. The static methods on
+ * {@link JavalinController} use {@link JavalinController#getDefaultRegistry() the default registry}.
+ * <p>
+ * Registries are safe to use from several threads. Everything registered is published as an immutable snapshot,
+ * so requests and route compilation read it without locking.
+ */
+public class ControllerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControllerRegistry.class);
+    private static final String MAPPED_STATUS_ATTRIBUTE = ControllerRegistry.class.getName() + ".mappedStatus";
+
+    private static final Map<Class<? extends Annotation>, Function<Javalin, BiConsumer<String, Handler>>> annotationMethodMap = new HashMap<>();
+    private static final Map<Class<? extends Annotation>, Method> annotationValueMethodMap = new ConcurrentHashMap<>();
+
+    private volatile Map<Class<? extends Annotation>, ParameterMapper<?>> parameterMappers = Collections.emptyMap();
+    private volatile Map<Class<? extends Annotation>, Function<?, Predicate<Object>>> parameterValidators = Collections.emptyMap();
+
+    private volatile Map<Class<? extends Annotation>, BiPredicate<?, Context>> methodValidators = Collections.emptyMap();
+
+    private volatile List<RegisteredRoute> registeredRoutes = Collections.emptyList();
+
+    private volatile Map<String, Executor> executors = Collections.emptyMap();
+
+    private volatile ControllerFactory controllerFactory;
+
+    private final List<RouteTraceListener> traceListeners = new CopyOnWriteArrayList<>();
+    private final Set<Javalin> statusHookedApps = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private volatile double traceSampleRate = 1;
+
+    private volatile Map<Class<?>, ParameterConverter<?>> parameterConverters = Collections.emptyMap();
+
+    private final BiFunction<String, Class, Object> valueToPrimitiveConverter = (value, type) -> {
+        if (value == null) return null;
+        return getParameterConverter(type).convert(value);
+    };
+
+    static {
+        annotationMethodMap.put(GET.class, app -> app::get);
+        annotationMethodMap.put(POST.class, app -> app::post);
+        annotationMethodMap.put(PATCH.class, app -> app::patch);
+        annotationMethodMap.put(PUT.class, app -> app::put);
+        annotationMethodMap.put(DELETE.class, app -> app::delete);
+
+        annotationMethodMap.put(HEAD.class, app -> app::head);
+
+        annotationMethodMap.put(Before.class, app -> app::before);
+        annotationMethodMap.put(After.class, app -> app::after);
+    }
+
+    public ControllerRegistry() {
+        registerParameterConverter(String.class, value -> value);
+        registerParameterConverter(Byte.class, Byte::valueOf);
+        registerParameterConverter(Character.class, value -> {
+            if (value.length() != 1) throw new BadRequestResponse("Invalid character provided.");
+            return value.charAt(0);
+        });
+        registerParameterConverter(Short.class, Short::valueOf);
+        registerParameterConverter(Integer.class, Integer::valueOf);
+        registerParameterConverter(Long.class, Long::valueOf);
+        registerParameterConverter(Float.class, Float::valueOf);
+        registerParameterConverter(Double.class, Double::valueOf);
+        registerParameterConverter(Boolean.class, Boolean::valueOf);
+
+        registerParameterMapper(RequestContext.class, (ctx, annotation, type) -> ctx);
+        registerParameterMapper(Query.class, convertingMapper((ctx, annotation) -> ctx.queryParam(annotation.value(), RawParameters.defaultValue(annotation.defaultValue()))));
+        registerParameterMapper(QueryMap.class, (ctx, annotation, type) -> ctx.queryParamMap());
+        registerParameterMapper(Form.class, convertingMapper((ctx, annotation) -> ctx.formParam(annotation.value(), RawParameters.defaultValue(annotation.defaultValue()))));
+        registerParameterMapper(FormMulti.class, new ParameterMapper<FormMulti>() {
+            @Override
+            public Object map(Context ctx, FormMulti annotation, Class<?> type) {
+                return null; //ignored
+            }
+
+            @Override
+            public ParameterBinder binder(FormMulti annotation, Class<?> type, Parameter originalParameter, boolean optional) {
+                if (!List.class.isAssignableFrom(type)) {
+                    throw new IllegalStateException("Parameter tagged with @FormMulti must be a List");
+                }
+
+                Class internalType = (Class) ((ParameterizedType) originalParameter.getParameterizedType()).getActualTypeArguments()[0];
+                ParameterConverter<?> converter = getParameterConverter(internalType);
+
+                return ctx -> ctx.formParams(annotation.value()).stream().map(converter::convert).collect(Collectors.toList());
+            }
+        });
+        registerParameterMapper(FormMap.class, (ctx, annotation, type) -> ctx.formParamMap());
+        registerParameterMapper(Header.class, (ctx, annotation, type) -> ctx.queryParam(annotation.value()));
+        registerParameterMapper(Path.class, convertingMapper((ctx, annotation) -> ctx.pathParam(annotation.value())));
+        registerParameterMapper(HeaderMap.class, (ctx, annotation, type) -> ctx.headerMap());
+        registerParameterMapper(Body.class, convertingMapper((ctx, annotation) -> ctx.body()));
+        registerParameterMapper(JsonBody.class, new ParameterMapper<JsonBody>() {
+            @Override
+            public Object map(Context ctx, JsonBody annotation, Class<?> type) {
+                return JavalinJson.fromJson(ctx.body(), type);
+            }
+
+            @Override
+            public ParameterBinder binder(JsonBody annotation, Class<?> type, Parameter originalParameter, boolean optional) {
+                if (!annotation.streaming()) {
+                    return ctx -> map(ctx, annotation, type);
+                }
+
+                if (!JacksonBodyReader.isAvailable()) {
+                    throw new IllegalStateException("Parameters tagged with @JsonBody(streaming = true) need jackson-databind on the classpath");
+                }
+
+                return JacksonBodyReader.binder(annotation, type, originalParameter.getParameterizedType(), optional);
+            }
+        });
+        registerParameterMapper(Upload.class, (ctx, annotation, type) -> ctx.uploadedFile(annotation.value()));
+        registerParameterMapper(UploadMulti.class, new ParameterMapper<UploadMulti>() {
+            @Override
+            public Object map(Context ctx, UploadMulti annotation, Class<?> type) {
+                return null; //ignored
+            }
+
+            @Override
+            public ParameterBinder binder(UploadMulti annotation, Class<?> type, Parameter originalParameter, boolean optional) {
+                if (!List.class.isAssignableFrom(type)) {
+                    throw new IllegalStateException("Parameter tagged with @UploadMulti must be a List<UploadedFile>");
+                }
+
+                Class internalType = (Class) ((ParameterizedType) originalParameter.getParameterizedType()).getActualTypeArguments()[0];
+                if (UploadedFile.class != internalType) {
+                    throw new IllegalStateException("Parameter tagged with @UploadMulti must be a List<UploadedFile>");
+                }
+
+                return ctx -> ctx.uploadedFiles(annotation.value());
+            }
+        });
+
+        registerParameterValidator(NotNull.class, (annotation, obj) -> obj != null && (!(obj instanceof String) || ((String) obj).trim().length() > 0));
+        registerParameterValidator(Range.class, (annotation, obj) -> {
+            if (!(obj instanceof Number)) return false;
+            Number number = (Number) obj;
+            if (number.doubleValue() < annotation.min())
+                return false;
+            if (number.doubleValue() > annotation.max())
+                return false;
+            return true;
+        });
+        registerParameterValidatorFactory(Regex.class, annotation -> {
+            Pattern pattern = Pattern.compile(annotation.value());
+            ThreadLocal<Matcher> matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+            return obj -> obj instanceof String && matcher.get().reset((String) obj).matches();
+        });
+    }
+
+    public void registerController(Class<?> controller, Javalin app) {
+        actuallyRegisterController(controller, null, app);
+    }
+
+    public void registerController(Object controller, Javalin app) {
+        actuallyRegisterController(controller.getClass(), controller, app);
+    }
+
+    public List<ControllerRegistration> registerControllers(Javalin app) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return registerControllers(app, classLoader != null ? classLoader : ControllerRegistry.class.getClassLoader(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Registers every controller listed in the {@link GeneratedController#INDEX_FILE} indexes on the class path,
+     * which {@link me.theminecoder.web.javalin.processor.ControllerProcessor} writes for the public controllers it
+     * generated routes for. Controllers are analysed in parallel on the executor and registered in order of their
+     * class name, so routes always end up in the same order.
+     */
+    public List<ControllerRegistration> registerControllers(Javalin app, ClassLoader classLoader, Executor executor) {
+        long start = System.nanoTime();
+        Set<String> controllerNames = new TreeSet<>();
+        try {
+            for (URL index : Collections.list(classLoader.getResources(GeneratedController.INDEX_FILE))) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty()) controllerNames.add(line.split(" ")[0]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new JavalinControllerException("Error reading controller indexes", e);
+        }
+
+        List<CompletableFuture<ControllerAnalysis>> analyses = new ArrayList<>(controllerNames.size());
+        for (String controllerName : controllerNames) {
+            analyses.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return analyseController(Class.forName(controllerName, true, classLoader));
+                } catch (ClassNotFoundException e) {
+                    throw new JavalinControllerException("Indexed controller " + controllerName + " isn't on the class path", e);
+                }
+            }, executor));
+        }
+
+        List<ControllerRegistration> registrations = new ArrayList<>(analyses.size());
+        for (CompletableFuture<ControllerAnalysis> analysis : analyses) {
+            ControllerAnalysis controllerAnalysis;
+            try {
+                controllerAnalysis = analysis.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+
+            ControllerRegistration registration = register(controllerAnalysis, null, app);
+            logger.debug("Registered controller {}", registration);
+            registrations.add(registration);
+        }
+
+        logger.info("Registered {} discovered controllers in {}ms", registrations.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return registrations;
+    }
+
+    /**
+     * Sets the factory used to create controllers registered by class. Only affects controllers registered after
+     * this is called, pass null to go back to using the controller's no-args constructor.
+     */
+    public void setControllerFactory(ControllerFactory factory) {
+        controllerFactory = factory;
+    }
+
+    /**
+     * Registers an executor that {@link Async} routes can run on. Registering one under
+     * {@link Async#DEFAULT_EXECUTOR} replaces the common pool as the executor for a plain {@code @Async}.
+     */
+    public synchronized void registerExecutor(String name, Executor executor) {
+        executors = with(executors, name, executor, "Executor already exists!");
+    }
+
+    public BiFunction<String, Class, Object> getValueToPrimitiveConverter() {
+        return valueToPrimitiveConverter;
+    }
+
+    /**
+     * Returns the converter used for parameters of the given type. Primitives use their wrapper's converter and
+     * enums are looked up by name.
+     */
+    public <T> ParameterConverter<T> getParameterConverter(Class<T> type) {
+        Class<?> lookupType = RoutePlan.boxed(type);
+        ParameterConverter<?> converter = parameterConverters.get(lookupType);
+        if (converter == null && Enum.class.isAssignableFrom(lookupType)) {
+            EnumLookup lookup = EnumLookup.of(lookupType);
+            converter = lookup::find;
+        }
+
+        if (converter == null) {
+            throw new IllegalArgumentException("Parameter type must be a primitive, enum or a String, or have a registered ParameterConverter (got " + type.getName() + ")");
+        }
+
+        //noinspection unchecked
+        return (ParameterConverter<T>) converter;
+    }
+
+    public synchronized <T> void registerParameterConverter(Class<T> type, ParameterConverter<T> converter) {
+        parameterConverters = with(parameterConverters, type, converter, "Parameter converter already exists!");
+    }
+
+    public List<RegisteredRoute> getRegisteredRoutes() {
+        return registeredRoutes.stream().sorted(Comparator.comparing(RegisteredRoute::getPath)).collect(Collectors.toList());
+    }
+
+    /**
+     * Metrics of every route, leaving out before/after methods Javalin runs as filters.
+     */
+    public Map<RegisteredRoute, RouteMetrics> getRouteMetrics() {
+        Map<RegisteredRoute, RouteMetrics> metrics = new LinkedHashMap<>();
+        getRegisteredRoutes().forEach(route -> {
+            if (!route.isFilter()) metrics.put(route, route.getMetrics());
+        });
+        return metrics;
+    }
+
+    /**
+     * Adds a listener that is given a {@link RouteTrace} for each sampled request. Requests aren't traced at all
+     * while there are no listeners.
+     */
+    public void addTraceListener(RouteTraceListener listener) {
+        traceListeners.add(listener);
+    }
+
+    public void removeTraceListener(RouteTraceListener listener) {
+        traceListeners.remove(listener);
+    }
+
+    /**
+     * Sets the fraction of requests that are traced, from 0 (none) to 1 (every request, the default).
+     */
+    public void setTraceSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        traceSampleRate = sampleRate;
+    }
+
+    /**
+     * Adds a GET endpoint serving the metrics of every route of this registry in the Prometheus text format. Like
+     * {@link #getRouteMetrics()}, before/after methods are left out.
+     */
+    public void registerMetricsEndpoint(Javalin app, String path) {
+        app.get(path, ctx -> ctx.contentType("text/plain; version=0.0.4").result(RouteMetricsFormatter.format(getRegisteredRoutes())));
+    }
+
+    public void registerBatchEndpoint(Javalin app, String path) {
+        registerBatchEndpoint(app, path, ForkJoinPool.commonPool(), 20);
+    }
+
+    public void registerBatchEndpoint(Javalin app, String path, Executor executor, int maxRequests) {
+        registerBatchEndpoint(app, path, executor, maxRequests, 1024 * 1024);
+    }
+
+    /**
+     * Registers a POST endpoint that takes a JSON array of requests to controller routes, runs them in parallel on
+     * the executor through the app like any other request and answers with a JSON array of their responses.
+     * Requests to anything but a route of this registry are answered with a 404. Batch bodies over
+     * {@code maxBodySize} bytes are refused with a 413 before they're parsed. Sub-requests don't inherit the
+     * credentials, cookies or session of the batch request. Needs Jackson on the classpath.
+     */
+    public void registerBatchEndpoint(Javalin app, String path, Executor executor, int maxRequests, long maxBodySize) {
+        if (!JacksonBodyReader.isAvailable()) {
+            throw new JavalinControllerException("The batch endpoint needs Jackson on the classpath");
+        }
+        app.post(path, new BatchEndpoint(app, executor, maxRequests, maxBodySize, () -> registeredRoutes));
+    }
+
+    public synchronized <T extends Annotation> void registerParameterMapper(Class<T> type, ParameterMapper<T> mapperFunction) {
+        parameterMappers = with(parameterMappers, type, mapperFunction, "Parameter mapper already exists!");
+    }
+
+    public <T extends Annotation> void registerParameterValidator(Class<T> type, BiPredicate<T, Object> validatorFunction) {
+        registerParameterValidatorFactory(type, annotation -> obj -> validatorFunction.test(annotation, obj));
+    }
+
+    /**
+     * Registers a validator that is created once per annotated parameter when the route is registered, for
+     * validators that have setup work to do (compiling patterns, parsing annotation values, etc).
+     */
+    public synchronized <T extends Annotation> void registerParameterValidatorFactory(Class<T> type, Function<T, Predicate<Object>> validatorFactory) {
+        parameterValidators = with(parameterValidators, type, validatorFactory, "Parameter validator already exists!");
+    }
+
+    public synchronized <T extends Annotation> void registerMethodValidator(Class<T> type, BiPredicate<T, Context> validatorFunction) {
+        methodValidators = with(methodValidators, type, validatorFunction, "Method validator already exists!");
+    }
+
+    /**
+     * Copy of the snapshot with the entry added, registries only ever publish unmodified copies.
+     */
+    private static <K, V> Map<K, V> with(Map<K, V> snapshot, K key, V value, String existsMessage) {
+        if (snapshot.containsKey(key)) {
+            throw new IllegalStateException(existsMessage);
+        }
+
+        Map<K, V> copy = new HashMap<>(snapshot);
+        copy.put(key, value);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Mapper for annotations that read a single raw value from the request, resolving the converter for the
+     * parameter type when the route is registered.
+     */
+    private <T extends Annotation> ParameterMapper<T> convertingMapper(BiFunction<Context, T, String> valueFunction) {
+        return new ParameterMapper<T>() {
+            @Override
+            public Object map(Context ctx, T annotation, Class<?> type) {
+                return valueToPrimitiveConverter.apply(valueFunction.apply(ctx, annotation), type);
+            }
+
+            @Override
+            public ParameterBinder binder(T annotation, Class<?> type, Parameter originalParameter, boolean optional) {
+                ParameterConverter<?> converter = getParameterConverter(type);
+                return ctx -> {
+                    String value = valueFunction.apply(ctx, annotation);
+                    return value == null ? null : converter.convert(value);
+                };
+            }
+        };
+    }
+
+    private void actuallyRegisterController(Class<?> controllerClass, Object controllerObject, Javalin app) {
+        register(analyseController(controllerClass), controllerObject, app);
+    }
+
+    /**
+     * Compiles the routes of a controller without touching the app, so several controllers can be analysed at once.
+     * Methods are read in a single pass and ordered before routes, then routes, then after routes.
+     */
+    private ControllerAnalysis analyseController(Class<?> controllerClass) {
+        long start = System.nanoTime();
+        Controller controller = controllerClass.getAnnotation(Controller.class);
+        if (controller == null) {
+            throw new IllegalArgumentException("Controller doesn't have the @Controller annotation");
+        }
+
+        List<ControllerAnalysis.Route> routes = new ArrayList<>();
+        GeneratedController generatedController = GeneratedController.find(controllerClass);
+        if (generatedController != null) {
+            generatedController.routes().forEach(route -> routes.add(analyseRoute(controllerClass, route.getRouteMethodType(), route.getPath(),
+                    route.getMethod(), RouteInvoker.generated(route.getInvoker()))));
+            return new ControllerAnalysis(controllerClass, controller, routes, System.nanoTime() - start);
+        }
+
+        String controllerPath = controller.value().trim();
+        if (controllerPath.startsWith("/")) controllerPath = controllerPath.substring(1);
+        if (controllerPath.endsWith("/"))
+            controllerPath = controllerPath.substring(0, controllerPath.length() - 1);
+
+        List<ControllerAnalysis.Route> afterRoutes = new ArrayList<>();
+        int beforeRoutes = 0;
+        for (Method method : controllerClass.getMethods()) {
+            Annotation annotation = null;
+            for (Annotation methodAnnotation : method.getAnnotations()) {
+                if (!annotationMethodMap.containsKey(methodAnnotation.annotationType())) continue;
+                if (annotation != null) {
+                    throw new IllegalStateException("Method \"" + method + "\" must have only 1 controller method annotation");
+                }
+                annotation = methodAnnotation;
+            }
+            if (annotation == null) {
+                continue;
+            }
+
+            String routeString = "/" + controllerPath;
+
+            Method valueMethod = annotationValueMethodMap.computeIfAbsent(annotation.getClass(), clz -> {
+                try {
+                    return clz.getMethod("value");
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            String methodPath;
+            try {
+                methodPath = (String) valueMethod.invoke(annotation);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+
+            methodPath = methodPath.trim();
+            if (methodPath.startsWith("/")) methodPath = methodPath.substring(1);
+            if (methodPath.endsWith("/")) methodPath = methodPath.substring(0, methodPath.length() - 1);
+
+            if (!routeString.endsWith("/") && methodPath.length() >= 1) methodPath = "/" + methodPath;
+            routeString += methodPath;
+
+            ControllerAnalysis.Route route = analyseRoute(controllerClass, annotation.annotationType(), routeString, method, null);
+            if (annotation.annotationType() == Before.class) {
+                routes.add(beforeRoutes++, route);
+            } else if (annotation.annotationType() == After.class) {
+                afterRoutes.add(route);
+            } else {
+                routes.add(route);
+            }
+        }
+        routes.addAll(afterRoutes);
+
+        return new ControllerAnalysis(controllerClass, controller, routes, System.nanoTime() - start);
+    }
+
+    private ControllerAnalysis.Route analyseRoute(Class<?> controllerClass, Class<? extends Annotation> routeMethodType, String path, Method method, RouteInvoker invoker) {
+        RoutePlan plan = RoutePlan.compile(controllerClass, method, invoker, parameterMappers, parameterValidators, methodValidators);
+        return new ControllerAnalysis.Route(routeMethodType, path, method, plan, resolveExecutor(controllerClass, plan, method));
+    }
+
+    /**
+     * Adds the analysed routes to the app and publishes them. Javalin doesn't expect handlers to be added from
+     * several threads, so registrations on the same app take turns.
+     */
+    private ControllerRegistration register(ControllerAnalysis analysis, Object controllerObject, Javalin app) {
+        long start = System.nanoTime();
+        if (controllerObject == null && analysis.controller.scope() == Controller.Scope.PER_REQUEST) {
+            for (ControllerAnalysis.Route route : analysis.routes) {
+                if (route.plan.getBatcher() != null) {
+                    throw new IllegalStateException("Method \"" + route.method + "\" is @Batched, which loads the keys of many requests on one controller instance, so its controller must be a SINGLETON");
+                }
+            }
+        }
+        if (controllerObject == null && analysis.controller.scope() == Controller.Scope.POOLED) {
+            for (ControllerAnalysis.Route route : analysis.routes) {
+                if (route.executor != null || route.plan.getBatcher() != null || route.plan.getCoalescer() != null
+                        || CompletionStage.class.isAssignableFrom(route.method.getReturnType())) {
+                    throw new IllegalStateException("Method \"" + route.method + "\" runs off the request thread, so its controller can't be POOLED");
+                }
+            }
+        }
+        ControllerProvider controllerProvider = ControllerProvider.create(analysis.controllerClass, controllerObject, analysis.controller.scope(), controllerFactory);
+
+        List<ControllerAnalysis.Route> filters = new ArrayList<>();
+        if (analysis.controller.fuseFilters()) {
+            for (ControllerAnalysis.Route route : analysis.routes) {
+                if (route.isFilter()) filters.add(route);
+            }
+        }
+
+        if (analysis.controller.treeDispatch()) TreeDispatcher.checkSupported();
+
+        Set<String> headPaths = new HashSet<>();
+        for (ControllerAnalysis.Route route : analysis.routes) {
+            if (route.routeMethodType == HEAD.class) headPaths.add(route.path);
+        }
+
+        List<RegisteredRoute> routes = new ArrayList<>(analysis.routes.size());
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (app) {
+            addStatusHook(app);
+            Map<Class<? extends Annotation>, TreeDispatcher> dispatchers = analysis.controller.treeDispatch() ? new LinkedHashMap<>() : null;
+            for (ControllerAnalysis.Route route : analysis.routes) {
+                if (!filters.isEmpty() && route.isFilter()) continue;
+                boolean head = route.routeMethodType == GET.class && route.plan.isFileResponse() && !headPaths.contains(route.path);
+                routes.add(registerRoute(app, controllerProvider, route, filters.isEmpty() ? null : FilterChain.create(route.path, filters), dispatchers, head));
+            }
+            if (dispatchers != null) {
+                dispatchers.forEach((type, dispatcher) -> dispatcher.getMountPaths().forEach(path -> annotationMethodMap.get(type).apply(app).accept(path, dispatcher)));
+            }
+        }
+
+        synchronized (this) {
+            List<RegisteredRoute> registeredRoutes = new ArrayList<>(this.registeredRoutes.size() + routes.size());
+            registeredRoutes.addAll(this.registeredRoutes);
+            registeredRoutes.addAll(routes);
+            this.registeredRoutes = Collections.unmodifiableList(registeredRoutes);
+        }
+        return new ControllerRegistration(analysis.controllerClass, Collections.unmodifiableList(routes), analysis.analysisNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * @param filters     the fused before/after methods of the route, null if it has none
+     * @param dispatchers the tree dispatchers by route type to add the route to instead of the app, null when the
+     *                    controller doesn't use them
+     * @param head        whether to answer HEAD requests with the route too, for GET routes sending files
+     */
+    private RegisteredRoute registerRoute(Javalin app, ControllerProvider controllerProvider, ControllerAnalysis.Route analysed, FilterChain filters,
+                                          Map<Class<? extends Annotation>, TreeDispatcher> dispatchers, boolean head) {
+        RoutePlan plan = analysed.plan;
+        Executor executor = analysed.executor;
+        RegisteredRoute route = new RegisteredRoute(analysed.path, analysed.routeMethodType, analysed.method, plan.getInvocationStrategy(), new RouteMetrics(), plan.getCache(), plan.getLimits(), plan.getBatcher(), head);
+        RouteLimits limits = plan.getLimits();
+
+        Handler handler = ctx -> handle(ctx, route, plan, limits, controllerProvider, executor, null);
+        if (filters != null) {
+            handler = ctx -> {
+                ControllerProvider controller = ControllerProvider.singleton(controllerProvider.get(ctx));
+                FilterChain.FilterCall call = filter -> callMethod(ctx, controller, filter, null, null);
+                try {
+                    handle(ctx, route, plan, limits, controller, executor, () -> filters.before(ctx, call));
+                } catch (RuntimeException | Error e) {
+                    try {
+                        filters.after(ctx, call);
+                    } catch (RuntimeException | Error afterError) {
+                        e.addSuppressed(afterError);
+                    }
+                    throw e;
+                }
+
+                CompletableFuture<?> future = ctx.resultFuture();
+                if (future == null) {
+                    filters.after(ctx, call);
+                    return;
+                }
+
+                CompletableFuture<Object> filtered = new CompletableFuture<>();
+                future.whenComplete((result, error) -> {
+                    try {
+                        filters.after(ctx, call);
+                    } catch (Throwable afterError) {
+                        if (error == null) {
+                            filtered.completeExceptionally(afterError);
+                            return;
+                        }
+                        error.addSuppressed(afterError);
+                    }
+                    if (error != null) filtered.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    else filtered.complete(result);
+                });
+                ctx.result(filtered);
+            };
+        }
+
+        addHandler(app, analysed.routeMethodType, analysed.path, handler, dispatchers);
+        if (head) addHandler(app, HEAD.class, analysed.path, handler, dispatchers);
+        return route;
+    }
+
+    private static void addHandler(Javalin app, Class<? extends Annotation> routeMethodType, String path, Handler handler, Map<Class<? extends Annotation>, TreeDispatcher> dispatchers) {
+        if (dispatchers != null && routeMethodType != Before.class && routeMethodType != After.class && !path.contains("*")) {
+            dispatchers.computeIfAbsent(routeMethodType, type -> TreeDispatcher.create(app)).add(path, handler);
+        } else {
+            annotationMethodMap.get(routeMethodType).apply(app).accept(path, handler);
+        }
+    }
+
+    /**
+     * @param before the fused before filters, run once the limits let the request through, null if there are none
+     */
+    private void handle(Context ctx, RegisteredRoute route, RoutePlan plan, RouteLimits limits, ControllerProvider controllerProvider, Executor executor, Runnable before) {
+        long start = System.nanoTime();
+        RouteTrace trace = startTrace(route, plan, ctx, start);
+        if (limits != null) {
+            try {
+                limits.acquire(ctx);
+            } catch (HttpResponseException e) {
+                finishRequest(route, trace, null, e.getStatus(), start);
+                throw e;
+            }
+        }
+
+        try {
+            if (before != null) before.run();
+            callMethod(ctx, controllerProvider, plan, executor, trace);
+        } catch (HttpResponseException e) {
+            finishRequest(route, trace, limits, e.getStatus(), start);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            finishMapped(ctx, route, trace, limits, start);
+            throw e;
+        }
+
+        CompletableFuture<?> future = ctx.resultFuture();
+        if (future == null || plan.isPipeline()) {
+            finishRequest(route, trace, limits, ctx.status(), start);
+            return;
+        }
+
+        // Javalin maps the failure of the future it is given, so it has to complete after the request is finished here
+        CompletableFuture<Object> finished = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                finishRequest(route, trace, limits, ctx.status(), start);
+                finished.complete(result);
+                return;
+            }
+            if (cause instanceof HttpResponseException) {
+                finishRequest(route, trace, limits, ((HttpResponseException) cause).getStatus(), start);
+            } else {
+                finishMapped(ctx, route, trace, limits, start);
+            }
+            finished.completeExceptionally(cause);
+        });
+        ctx.result(finished);
+    }
+
+    /**
+     * Finishes a request that failed with an exception other than {@link HttpResponseException}. The app's exception
+     * handlers decide its status, so it's recorded by the after handler added in {@link #addStatusHook(Javalin)}. The
+     * limits are released right away.
+     */
+    private void finishMapped(Context ctx, RegisteredRoute route, RouteTrace trace, RouteLimits limits, long start) {
+        if (limits != null) limits.release();
+        ctx.attribute(MAPPED_STATUS_ATTRIBUTE, (IntConsumer) status -> finishRequest(route, trace, null, status, start));
+    }
+
+    /**
+     * Adds the after handler that records the status of requests finished by {@link #finishMapped}. Javalin runs after
+     * handlers once exceptions are mapped, for async results too.
+     */
+    private void addStatusHook(Javalin app) {
+        if (!statusHookedApps.add(app)) return;
+        app.after(ctx -> {
+            IntConsumer finish = ctx.attribute(MAPPED_STATUS_ATTRIBUTE);
+            if (finish == null) return;
+            ctx.attribute(MAPPED_STATUS_ATTRIBUTE, null);
+            finish.accept(ctx.status());
+        });
+    }
+
+    private RouteTrace startTrace(RegisteredRoute route, RoutePlan plan, Context ctx, long start) {
+        if (traceListeners.isEmpty()) return null;
+        double sampleRate = traceSampleRate;
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return null;
+        return new RouteTrace(route, plan.getParameterNames(), ctx.path(), start);
+    }
+
+    /**
+     * @param limits the limits to release, null if they weren't acquired
+     */
+    private void finishRequest(RegisteredRoute route, RouteTrace trace, RouteLimits limits, int status, long start) {
+        if (limits != null) limits.release();
+        long now = System.nanoTime();
+        route.getMetrics().record(status, now - start);
+        if (trace == null) return;
+
+        trace.finish(status, now);
+        for (RouteTraceListener listener : traceListeners) {
+            try {
+                listener.onTrace(trace);
+            } catch (RuntimeException e) {
+                logger.warn("Route trace listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    private Executor resolveExecutor(Class<?> controllerClass, RoutePlan plan, Method method) {
+        Async async = method.getAnnotation(Async.class);
+        if (async != null && plan.isPipeline()) {
+            throw new IllegalStateException("Method \"" + method + "\" is a before/after method and can't be @Async");
+        }
+
+        if (async == null && !plan.isPipeline()) {
+            async = RoutePlan.classAnnotation(controllerClass, method, Async.class);
+        }
+
+        if (async == null) {
+            return null;
+        }
+
+        Executor executor = executors.get(async.value());
+        if (executor == null) {
+            if (Async.DEFAULT_EXECUTOR.equals(async.value())) return ForkJoinPool.commonPool();
+            throw new IllegalStateException("No executor registered with the name \"" + async.value() + "\" for method " + method);
+        }
+        return executor;
+    }
+
+    private static void callMethod(Context ctx, ControllerProvider controllerProvider, RoutePlan plan, Executor executor, RouteTrace trace) {
+        ResponseCache cache = plan.getCache();
+        Object[] args = plan.newArguments();
+        //A cache hit only binds and validates the parameters its key is made of
+        plan.bindArguments(ctx, args, cache != null ? cache.getKeyParameters() : plan.getAllParameters());
+        if (trace != null) trace.mark(RouteTrace.Phase.BIND);
+        plan.validate(ctx);
+        if (trace != null) trace.mark(RouteTrace.Phase.VALIDATE);
+
+        List<Object> cacheKey = null;
+        if (cache != null) {
+            cacheKey = cache.key(args);
+            ResponseCache.Entry cached = cache.get(cacheKey);
+            if (cached != null) {
+                ctx.contentType(cached.contentType);
+                if (cached.etag != null) {
+                    ctx.header("ETag", cached.etag);
+                    if (ETags.isConditional(ctx) && ETags.matches(ctx.header("If-None-Match"), cached.etag)) {
+                        ETags.notModified(ctx);
+                        return;
+                    }
+                }
+                ctx.result(new ByteArrayInputStream(cached.body));
+                return;
+            }
+            plan.bindArguments(ctx, args, cache.getOtherParameters());
+            if (trace != null) trace.mark(RouteTrace.Phase.BIND);
+        }
+
+        Object actualController = controllerProvider.get(ctx);
+
+        MicroBatcher batcher = plan.getBatcher();
+        if (batcher != null) {
+            CompletableFuture<Object> loaded = batcher.load(actualController, args[0], executor != null ? executor : ForkJoinPool.commonPool());
+            ctx.result(asyncResult(ctx, plan, loaded, trace, cacheKey));
+            return;
+        }
+
+        RequestCoalescer coalescer = plan.getCoalescer();
+        if (coalescer != null) {
+            CompletableFuture<RequestCoalescer.Shared> shared = coalescer.join(args, leader -> {
+                if (executor == null) {
+                    share(ctx, plan, plan.invoke(actualController, args), leader);
+                    return;
+                }
+                executor.execute(() -> {
+                    try {
+                        share(ctx, plan, plan.invoke(actualController, args), leader);
+                    } catch (Throwable e) {
+                        leader.completeExceptionally(e);
+                    }
+                });
+            });
+            ctx.result(asyncResult(ctx, plan, shared, trace, cacheKey));
+            return;
+        }
+
+        if (executor != null) {
+            CompletableFuture<Object> response = new CompletableFuture<>();
+            executor.execute(() -> {
+                try {
+                    response.complete(plan.invoke(actualController, args));
+                } catch (Throwable e) {
+                    response.completeExceptionally(e);
+                }
+            });
+            ctx.result(asyncResult(ctx, plan, response, trace, cacheKey));
+            return;
+        }
+
+        Object response = plan.invoke(actualController, args);
+        if (trace != null) trace.mark(RouteTrace.Phase.INVOKE);
+
+        if (plan.isPipeline() //Bypass pipeline methods
+                && (ctx.resultStream() != null || ctx.resultFuture() != null)) {
+            return;
+        }
+
+        if (response instanceof CompletionStage) {
+            ctx.result(asyncResult(ctx, plan, (CompletionStage<?>) response, trace, cacheKey));
+            return;
+        }
+
+        Object result = toResult(ctx, plan, response);
+        if (result instanceof String) {
+            ctx.result((String) result);
+        } else if (result instanceof InputStream) {
+            ctx.result((InputStream) result);
+        }
+        if (cacheKey != null) cacheResult(ctx, cache, cacheKey, result);
+        if (trace != null) trace.mark(RouteTrace.Phase.SERIALIZE);
+    }
+
+    /**
+     * Serializes the leading request's response for every request coalesced with it. Conditional responses are
+     * checked per request, so the body is always built.
+     */
+    private static void share(Context ctx, RoutePlan plan, Object response, CompletableFuture<RequestCoalescer.Shared> shared) {
+        if (response instanceof CompletionStage) {
+            ((CompletionStage<?>) response).whenComplete((completed, error) -> {
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                    return;
+                }
+                try {
+                    share(ctx, plan, completed, shared);
+                } catch (Throwable e) {
+                    shared.completeExceptionally(e);
+                }
+            });
+            return;
+        }
+
+        ConditionalResponse conditional = null;
+        if (response instanceof ConditionalResponse) {
+            conditional = (ConditionalResponse) response;
+            response = conditional.getBody().get();
+        }
+
+        Object body = serialize(ctx, plan, response);
+        if (body instanceof InputStream) {
+            try (InputStream in = (InputStream) body) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    out.write(buffer, 0, read);
+                }
+                body = out.toByteArray();
+            } catch (IOException e) {
+                throw new JavalinControllerException("Error buffering coalesced response", e);
+            }
+        }
+        shared.complete(new RequestCoalescer.Shared(body, ctx.res.getContentType(), conditional));
+    }
+
+    private static void cacheResult(Context ctx, ResponseCache cache, List<Object> cacheKey, Object result) {
+        if (!(result instanceof String) || ctx.status() != 200) return;
+        cache.put(cacheKey, ((String) result).getBytes(Charset.forName(ctx.res.getCharacterEncoding())), ctx.res.getContentType(), ctx.res.getHeader("ETag"));
+    }
+
+    /**
+     * Turns a controller response into what Javalin should send, a String or InputStream (or null for nothing).
+     * Doesn't touch the context's result, as async responses are handed to Javalin through the result future.
+     */
+    private static Object toResult(Context ctx, RoutePlan plan, Object response) {
+        if (response instanceof RequestCoalescer.Shared) {
+            RequestCoalescer.Shared shared = (RequestCoalescer.Shared) response;
+            if (shared.contentType != null) ctx.contentType(shared.contentType);
+            if (shared.conditional != null && ETags.notModified(ctx, shared.conditional)) return null;
+            Object result = shared.body instanceof byte[] ? new ByteArrayInputStream((byte[]) shared.body) : shared.body;
+            return plan.isETag() ? ETags.tag(ctx, result) : result;
+        }
+
+        if (response instanceof ConditionalResponse) {
+            ConditionalResponse conditional = (ConditionalResponse) response;
+            if (ETags.notModified(ctx, conditional)) return null;
+            response = conditional.getBody().get();
+        }
+
+        Object result = serialize(ctx, plan, response);
+        return plan.isETag() ? ETags.tag(ctx, result) : result;
+    }
+
+    private static Object serialize(Context ctx, RoutePlan plan, Object response) {
+        if (response == null || response instanceof String || response instanceof InputStream) {
+            return response;
+        }
+
+        if (FileResponse.isFileType(response.getClass())) {
+            FileTransfer.send(ctx, FileResponse.from(response));
+            return null;
+        }
+
+        if (response instanceof Stream) {
+            Stream<?> stream = (Stream<?>) response;
+            ctx.contentType(plan.getStreamingFormat().getContentType());
+            return new JsonStreamInputStream(stream.iterator(), stream, plan.getStreamingFormat());
+        }
+
+        if (response instanceof Iterator) {
+            ctx.contentType(plan.getStreamingFormat().getContentType());
+            return new JsonStreamInputStream((Iterator<?>) response, response instanceof AutoCloseable ? (AutoCloseable) response : null, plan.getStreamingFormat());
+        }
+
+        if (response instanceof View) {
+            View view = (View) response;
+            String rendered = JavalinRenderer.INSTANCE.renderBasedOnExtension("/" + view.getViewName(), view.getData());
+            ctx.contentType("text/html");
+            return rendered;
+        }
+
+        ctx.contentType("application/json");
+        return JavalinJson.toJson(response);
+    }
+
+    /**
+     * Completes with the response of the controller's future once it's done. Failures are passed on unwrapped so
+     * Javalin's exception mappers see the original exception.
+     */
+    private static CompletableFuture<Object> asyncResult(Context ctx, RoutePlan plan, CompletionStage<?> stage, RouteTrace trace, List<Object> cacheKey) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        stage.whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+
+            try {
+                if (response instanceof CompletionStage) {
+                    asyncResult(ctx, plan, (CompletionStage<?>) response, trace, cacheKey).whenComplete((nestedResponse, nestedError) -> {
+                        if (nestedError != null) result.completeExceptionally(nestedError);
+                        else result.complete(nestedResponse);
+                    });
+                } else {
+                    if (trace != null) trace.mark(RouteTrace.Phase.INVOKE);
+                    Object serialized = toResult(ctx, plan, response);
+                    if (cacheKey != null) cacheResult(ctx, plan.getCache(), cacheKey, serialized);
+                    if (trace != null) trace.mark(RouteTrace.Phase.SERIALIZE);
+                    result.complete(serialized);
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+}
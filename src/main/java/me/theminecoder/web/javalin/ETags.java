@@ -0,0 +1,140 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conditional request handling for {@link me.theminecoder.web.javalin.annotations.ETag} routes,
+ * {@link ConditionalResponse}s and {@link FileResponse}s.
+ */
+final class ETags {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {
+    }
+
+    /**
+     * 64 bit FNV-1a over the UTF-16 chars of the body, it only has to change when the body does so there is no need
+     * to encode it first.
+     */
+    static String hash(String body) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < body.length(); i++) {
+            hash ^= body.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return quote(Long.toHexString(hash));
+    }
+
+    /**
+     * Sets the conditional response's headers, and its status to 304 if the client's copy is current.
+     */
+    static boolean notModified(Context ctx, ConditionalResponse conditional) {
+        return notModified(ctx, conditional.getETag(), conditional.getLastModified());
+    }
+
+    static boolean notModified(Context ctx, String etag, Instant lastModified) {
+        if (etag != null) ctx.header("ETag", etag);
+        if (lastModified != null) ctx.header("Last-Modified", formatDate(lastModified));
+        if (!isConditional(ctx)) return false;
+
+        String ifNoneMatch = ctx.header("If-None-Match");
+        boolean notModified = ifNoneMatch != null ? matches(ifNoneMatch, etag) : notModifiedSince(ctx.header("If-Modified-Since"), lastModified);
+        if (notModified) notModified(ctx);
+        return notModified;
+    }
+
+    /**
+     * Whether a {@code Range} request may be answered with part of the representation going by its
+     * {@code If-Range}, which needs a strong ETag or exactly the last modified time.
+     */
+    static boolean rangeApplies(String ifRange, String etag, Instant lastModified) {
+        if (ifRange == null) return true;
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        if (lastModified == null) return false;
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().getEpochSecond() == lastModified.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tags a successful string result with a hash of it, returning null instead of the result when the client
+     * already has it.
+     */
+    static Object tag(Context ctx, Object result) {
+        if (!(result instanceof String) || ctx.status() != 200 || ctx.res.getHeader("ETag") != null || !isConditional(ctx)) return result;
+
+        String etag = hash((String) result);
+        ctx.header("ETag", etag);
+        if (matches(ctx.header("If-None-Match"), etag)) {
+            notModified(ctx);
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Answers with 304 and no content type, Javalin sets a default one before the route runs.
+     */
+    static void notModified(Context ctx) {
+        ctx.status(304);
+        ctx.res.setContentType(null);
+    }
+
+    static String quote(String value) {
+        return "\"" + value.replace("\"", "") + "\"";
+    }
+
+    static boolean isConditional(Context ctx) {
+        String method = ctx.method();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * Weak comparison, as used for {@code If-None-Match}.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    static String formatDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    /**
+     * Whether the client's copy is current going by {@code If-Modified-Since}, only used when there is no
+     * {@code If-None-Match}. HTTP dates only have second precision.
+     */
+    static boolean notModifiedSince(String ifModifiedSince, Instant lastModified) {
+        if (ifModifiedSince == null || lastModified == null) return false;
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return lastModified.getEpochSecond() <= since.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+}
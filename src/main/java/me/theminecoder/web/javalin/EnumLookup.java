@@ -0,0 +1,68 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.EnumAlias;
+import me.theminecoder.web.javalin.annotations.EnumSearchType;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Name to constant index for an enum parameter type, built the first time the type is converted.
+ */
+final class EnumLookup {
+
+    private static final ClassValue<EnumLookup> lookups = new ClassValue<EnumLookup>() {
+        @Override
+        protected EnumLookup computeValue(Class<?> type) {
+            return new EnumLookup(type);
+        }
+    };
+
+    private final boolean caseInsensitive;
+    private final Map<String, Enum<?>> constants = new HashMap<>();
+
+    private EnumLookup(Class<?> type) {
+        EnumSearchType searchType = type.getAnnotation(EnumSearchType.class);
+        this.caseInsensitive = searchType != null && searchType.value() == EnumSearchType.Type.CASE_INSENSITIVE;
+
+        Enum<?>[] values = (Enum<?>[]) type.getEnumConstants();
+        if (values == null) {
+            throw new IllegalArgumentException(type + " is not an enum");
+        }
+
+        for (Enum<?> value : values) {
+            constants.put(key(value.name()), value);
+        }
+
+        for (Enum<?> value : values) {
+            EnumAlias alias;
+            try {
+                alias = type.getField(value.name()).getAnnotation(EnumAlias.class);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+            if (alias == null) continue;
+
+            for (String name : alias.value()) {
+                Enum<?> existing = constants.putIfAbsent(key(name), value);
+                if (existing != null && existing != value) {
+                    throw new IllegalStateException("Alias \"" + name + "\" on " + type.getName() + "." + value.name() + " is already used by " + existing.name());
+                }
+            }
+        }
+    }
+
+    static EnumLookup of(Class<?> type) {
+        return lookups.get(type);
+    }
+
+    Enum<?> find(String value) {
+        return constants.get(key(value));
+    }
+
+    private String key(String name) {
+        return caseInsensitive ? name.toLowerCase(Locale.ROOT) : name;
+    }
+
+}
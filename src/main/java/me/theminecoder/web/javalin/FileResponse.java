@@ -0,0 +1,115 @@
+package me.theminecoder.web.javalin;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A file or file channel sent straight from the file system, without copying it through heap buffers. Controller
+ * methods can also return a {@link Path} or {@link FileChannel} as is. {@code Range} requests for a single range are
+ * answered with 206 and {@code If-Range} is honoured, while requests for several ranges get the whole file. GET
+ * routes declared to return one of these also answer HEAD requests with the headers only.
+ * <p>
+ * Paths are given a strong ETag from their size and last modified time, channels only get one if it's set. Channels
+ * are closed once sent.
+ */
+public final class FileResponse {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final String contentType;
+    private final String fileName;
+    private final String etag;
+    private final Instant lastModified;
+
+    private FileResponse(Path path, FileChannel channel, String contentType, String fileName, String etag, Instant lastModified) {
+        this.path = path;
+        this.channel = channel;
+        this.contentType = contentType;
+        this.fileName = fileName;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public static FileResponse of(Path path) {
+        return new FileResponse(path, null, null, null, null, null);
+    }
+
+    public static FileResponse of(FileChannel channel) {
+        return new FileResponse(null, channel, null, null, null, null);
+    }
+
+    /**
+     * Defaults to the type the file system reports for paths, or {@code application/octet-stream}.
+     */
+    public FileResponse withContentType(String contentType) {
+        return new FileResponse(path, channel, contentType, fileName, etag, lastModified);
+    }
+
+    /**
+     * Sends the file as a download with the given name.
+     */
+    public FileResponse asAttachment(String fileName) {
+        return new FileResponse(path, channel, contentType, fileName, etag, lastModified);
+    }
+
+    /**
+     * @param version anything that changes whenever the content does
+     */
+    public FileResponse withVersion(Object version) {
+        return new FileResponse(path, channel, contentType, fileName, ETags.quote(String.valueOf(version)), lastModified);
+    }
+
+    public FileResponse withLastModified(Instant lastModified) {
+        return new FileResponse(path, channel, contentType, fileName, etag, lastModified);
+    }
+
+    static boolean isFileType(Class<?> type) {
+        return type == FileResponse.class || Path.class.isAssignableFrom(type) || FileChannel.class.isAssignableFrom(type);
+    }
+
+    static FileResponse from(Object response) {
+        if (response instanceof FileResponse) return (FileResponse) response;
+        if (response instanceof Path) return of((Path) response);
+        return of((FileChannel) response);
+    }
+
+    /**
+     * Fills in what the file system knows about a path.
+     *
+     * @throws NoSuchFileException if the path isn't a readable file
+     */
+    FileResponse resolve() throws IOException {
+        if (path == null) return this;
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) throw new NoSuchFileException(path.toString());
+
+        Instant modified = lastModified != null ? lastModified : Files.getLastModifiedTime(path).toInstant();
+        String type = contentType != null ? contentType : Files.probeContentType(path);
+        String tag = etag != null ? etag : ETags.quote(Long.toHexString(Files.size(path)) + "-" + Long.toHexString(modified.toEpochMilli()));
+        return new FileResponse(path, channel, type, fileName, tag, modified);
+    }
+
+    FileChannel open() throws IOException {
+        return channel != null ? channel : FileChannel.open(path);
+    }
+
+    String getContentType() {
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    String getETag() {
+        return etag;
+    }
+
+    Instant getLastModified() {
+        return lastModified;
+    }
+
+}
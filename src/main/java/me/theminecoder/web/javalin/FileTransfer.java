@@ -0,0 +1,131 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import io.javalin.NotFoundResponse;
+import org.eclipse.jetty.server.HttpOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Writes {@link FileResponse}s to the response itself, leaving Javalin nothing to send. On Jetty the file is memory
+ * mapped and handed to the connection as is, elsewhere it's transferred through {@link FileChannel#transferTo}.
+ * Small files are read in one go, mapping them costs more than copying.
+ */
+final class FileTransfer {
+
+    private static final long MAPPING_THRESHOLD = 16 * 1024;
+    private static final long MAX_MAPPING = 64 * 1024 * 1024;
+
+    private FileTransfer() {
+    }
+
+    static void send(Context ctx, FileResponse file) {
+        try {
+            file = file.resolve();
+        } catch (NoSuchFileException e) {
+            throw new NotFoundResponse();
+        } catch (IOException e) {
+            throw new JavalinControllerException("Error reading file " + e.getMessage(), e);
+        }
+
+        try (FileChannel channel = file.open()) {
+            long size = channel.size();
+            ctx.contentType(file.getContentType());
+            ctx.header("Accept-Ranges", "bytes");
+            if (file.getFileName() != null) {
+                ctx.header("Content-Disposition", "attachment; filename=\"" + file.getFileName().replace("\"", "") + "\"");
+            }
+            if (ETags.notModified(ctx, file.getETag(), file.getLastModified())) return;
+
+            long start = 0, length = size;
+            String range = ctx.header("Range");
+            if (range != null && ETags.isConditional(ctx) && ETags.rangeApplies(ctx.header("If-Range"), file.getETag(), file.getLastModified())) {
+                long[] bounds = parseRange(range, size);
+                if (bounds != null && bounds.length == 0) {
+                    ctx.status(416);
+                    ctx.header("Content-Range", "bytes */" + size);
+                    ctx.res.setContentLengthLong(0);
+                    return;
+                }
+                if (bounds != null) {
+                    start = bounds[0];
+                    length = bounds[1] - bounds[0] + 1;
+                    ctx.status(206);
+                    ctx.header("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+                }
+            }
+
+            ctx.res.setContentLengthLong(length);
+            if ("HEAD".equals(ctx.method()) || length == 0) return;
+            write(channel, start, length, ctx.res.getOutputStream());
+        } catch (IOException e) {
+            throw new JavalinControllerException("Error sending file", e);
+        }
+    }
+
+    private static void write(FileChannel channel, long position, long length, OutputStream out) throws IOException {
+        if (length <= MAPPING_THRESHOLD) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) break;
+            }
+            out.write(buffer.array(), 0, buffer.position());
+            return;
+        }
+
+        if (out instanceof HttpOutput) {
+            for (long end = position + length; position < end; ) {
+                long chunk = Math.min(MAX_MAPPING, end - position);
+                ((HttpOutput) out).write(channel.map(FileChannel.MapMode.READ_ONLY, position, chunk));
+                position += chunk;
+            }
+            return;
+        }
+
+        WritableByteChannel target = Channels.newChannel(out);
+        for (long end = position + length; position < end; ) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) break;
+            position += sent;
+        }
+    }
+
+    /**
+     * Parses a {@code Range} header for a single byte range into its first and last byte. Returns null to send the
+     * whole file, for headers it doesn't understand or several ranges, and an empty array when the range is past
+     * the end of the file.
+     */
+    static long[] parseRange(String header, long size) {
+        header = header.trim();
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return null;
+
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim(), last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) return null;
+                if (suffix == 0 || size == 0) return new long[0];
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start < 0) return null;
+            if (start >= size) return new long[0];
+            if (end < start) return null;
+            return new long[]{start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
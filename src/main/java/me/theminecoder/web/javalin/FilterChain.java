@@ -0,0 +1,77 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The before and after methods of a controller that apply to one of its routes, for controllers that fuse them
+ * into their routes. Filters that match every path of the route run unconditionally, filters that only match some
+ * are checked against the request path.
+ */
+final class FilterChain {
+
+    private final RoutePlan[] before;
+    private final Pattern[] beforePatterns;
+    private final RoutePlan[] after;
+    private final Pattern[] afterPatterns;
+
+    private FilterChain(RoutePlan[] before, Pattern[] beforePatterns, RoutePlan[] after, Pattern[] afterPatterns) {
+        this.before = before;
+        this.beforePatterns = beforePatterns;
+        this.after = after;
+        this.afterPatterns = afterPatterns;
+    }
+
+    /**
+     * Returns null when none of the filters can apply to the route.
+     */
+    static FilterChain create(String routePath, List<ControllerAnalysis.Route> filters) {
+        List<RoutePlan> before = new ArrayList<>(), after = new ArrayList<>();
+        List<Pattern> beforePatterns = new ArrayList<>(), afterPatterns = new ArrayList<>();
+        for (ControllerAnalysis.Route filter : filters) {
+            PathPatterns.Overlap overlap = PathPatterns.overlap(filter.path, routePath);
+            if (overlap == PathPatterns.Overlap.NEVER) continue;
+
+            Pattern pattern = overlap == PathPatterns.Overlap.ALWAYS ? null : PathPatterns.compile(filter.path);
+            if (filter.routeMethodType == Before.class) {
+                before.add(filter.plan);
+                beforePatterns.add(pattern);
+            } else {
+                after.add(filter.plan);
+                afterPatterns.add(pattern);
+            }
+        }
+
+        if (before.isEmpty() && after.isEmpty()) return null;
+        return new FilterChain(before.toArray(new RoutePlan[0]), beforePatterns.toArray(new Pattern[0]),
+                after.toArray(new RoutePlan[0]), afterPatterns.toArray(new Pattern[0]));
+    }
+
+    void before(Context ctx, FilterCall call) {
+        run(ctx, call, before, beforePatterns);
+    }
+
+    void after(Context ctx, FilterCall call) {
+        run(ctx, call, after, afterPatterns);
+    }
+
+    private static void run(Context ctx, FilterCall call, RoutePlan[] filters, Pattern[] patterns) {
+        String path = null;
+        for (int i = 0; i < filters.length; i++) {
+            if (patterns[i] != null) {
+                if (path == null) path = PathPatterns.requestPath(ctx);
+                if (!patterns[i].matcher(path).matches()) continue;
+            }
+            call.call(filters[i]);
+        }
+    }
+
+    interface FilterCall {
+        void call(RoutePlan filter);
+    }
+
+}
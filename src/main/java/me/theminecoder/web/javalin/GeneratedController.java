@@ -0,0 +1,46 @@
+package me.theminecoder.web.javalin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+/**
+ * Implemented by the classes {@link me.theminecoder.web.javalin.processor.ControllerProcessor} generates for each
+ * {@code @Controller}. When one is found next to a controller its routes are used instead of scanning the class.
+ */
+public interface GeneratedController {
+
+    public static final String CLASS_SUFFIX = "_JavalinRoutes";
+
+    /**
+     * Lists every generated controller of a compilation, one {@code <controller> <generated class>} pair of binary
+     * names per line.
+     */
+    public static final String INDEX_FILE = "META-INF/javalin-controllers/index";
+
+    public List<GeneratedRoute> routes();
+
+    static GeneratedController find(Class<?> controllerClass) {
+        Class<?> generatedClass;
+        try {
+            generatedClass = Class.forName(controllerClass.getName() + CLASS_SUFFIX, true, controllerClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        if (!GeneratedController.class.isAssignableFrom(generatedClass)) {
+            return null;
+        }
+
+        try {
+            return (GeneratedController) generatedClass.getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new JavalinControllerException("Error creating generated routes for controller " + controllerClass.getName(), cause);
+        } catch (ReflectiveOperationException e) {
+            throw new JavalinControllerException("Error creating generated routes for controller " + controllerClass.getName(), e);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package me.theminecoder.web.javalin;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+public final class GeneratedRoute {
+
+    private final Class<? extends Annotation> routeMethodType;
+    private final String path;
+    private final Method method;
+    private final Invoker invoker;
+
+    private GeneratedRoute(Class<? extends Annotation> routeMethodType, String path, Method method, Invoker invoker) {
+        this.routeMethodType = routeMethodType;
+        this.path = path;
+        this.method = method;
+        this.invoker = invoker;
+    }
+
+    public static GeneratedRoute of(Class<? extends Annotation> routeMethodType, String path, Class<?> controllerClass, String methodName, Class<?>[] parameterTypes, Invoker invoker) {
+        try {
+            return new GeneratedRoute(routeMethodType, path, controllerClass.getMethod(methodName, parameterTypes), invoker);
+        } catch (NoSuchMethodException e) {
+            throw new JavalinControllerException("Generated routes for " + controllerClass.getName() + " are out of date, recompile the controller", e);
+        }
+    }
+
+    public Class<? extends Annotation> getRouteMethodType() {
+        return routeMethodType;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Invoker getInvoker() {
+        return invoker;
+    }
+
+    @FunctionalInterface
+    public interface Invoker {
+
+        public Object invoke(Object controller, Object[] args) throws Throwable;
+
+    }
+
+}
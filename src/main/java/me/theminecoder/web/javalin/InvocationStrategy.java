@@ -0,0 +1,25 @@
+package me.theminecoder.web.javalin;
+
+public enum InvocationStrategy {
+
+    /**
+     * Straight line code generated at build time by {@link me.theminecoder.web.javalin.processor.ControllerProcessor}.
+     */
+    GENERATED,
+
+    /**
+     * A {@link java.lang.invoke.LambdaMetafactory} generated call site that calls the controller method directly.
+     */
+    LAMBDA,
+
+    /**
+     * A spread {@link java.lang.invoke.MethodHandle}, used when a lambda can't be spun for the method.
+     */
+    METHOD_HANDLE,
+
+    /**
+     * Plain {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+     */
+    REFLECTION
+
+}
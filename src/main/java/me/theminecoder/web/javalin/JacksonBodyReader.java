@@ -0,0 +1,176 @@
+package me.theminecoder.web.javalin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import io.javalin.BadRequestResponse;
+import io.javalin.Context;
+import io.javalin.HttpResponseException;
+import io.javalin.json.JavalinJackson;
+import me.theminecoder.web.javalin.annotations.parameters.JsonBody;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Binder for {@code @JsonBody(streaming = true)}. Kept apart from {@link ControllerRegistry} so Jackson only has to
+ * be on the classpath when streaming bodies are used.
+ */
+final class JacksonBodyReader {
+
+    private JacksonBodyReader() {
+    }
+
+    static boolean isAvailable() {
+        try {
+            Class.forName("com.fasterxml.jackson.databind.ObjectMapper", false, JacksonBodyReader.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    static ParameterBinder binder(JsonBody annotation, Class<?> type, Type genericType, boolean optional) {
+        if (optional) {
+            genericType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        }
+
+        ObjectMapper mapper = JavalinJackson.getObjectMapper();
+        long maxSize = annotation.maxSize();
+
+        if (Iterator.class == type || Stream.class == type) {
+            if (!(genericType instanceof ParameterizedType)) {
+                throw new IllegalStateException("Streaming @JsonBody " + type.getSimpleName() + " parameters need an element type");
+            }
+
+            ObjectReader reader = mapper.readerFor(mapper.getTypeFactory().constructType(((ParameterizedType) genericType).getActualTypeArguments()[0]));
+            return ctx -> {
+                MappingIterator<Object> iterator;
+                try {
+                    iterator = reader.readValues(bodyStream(ctx, maxSize));
+                } catch (JsonProcessingException e) {
+                    throw new BadRequestResponse("Invalid JSON body");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                BodyIterator values = new BodyIterator(iterator);
+                if (type == Iterator.class) return values;
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(values, Spliterator.ORDERED), false).onClose(() -> {
+                    try {
+                        values.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            };
+        }
+
+        JavaType javaType = mapper.getTypeFactory().constructType(genericType);
+        ObjectReader reader = mapper.readerFor(javaType);
+        return ctx -> {
+            try (InputStream body = bodyStream(ctx, maxSize)) {
+                return reader.readValue(body);
+            } catch (JsonProcessingException e) {
+                throw new BadRequestResponse("Invalid JSON body");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * The request body, failing with a 413 once more than {@code maxSize} bytes are read.
+     */
+    static InputStream bodyStream(Context ctx, long maxSize) throws IOException {
+        if (maxSize == JsonBody.NO_LIMIT) {
+            return ctx.req.getInputStream();
+        }
+
+        if (ctx.req.getContentLengthLong() > maxSize) {
+            throw payloadTooLarge();
+        }
+
+        return new FilterInputStream(ctx.req.getInputStream()) {
+            private long read;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) count(count);
+                return count;
+            }
+
+            private void count(int bytes) {
+                read += bytes;
+                if (read > maxSize) throw payloadTooLarge();
+            }
+        };
+    }
+
+    /**
+     * Answers with a 400 when the body turns out to be invalid while the method is reading it, which Jackson reports
+     * with runtime exceptions from {@link MappingIterator#hasNext()} and {@link MappingIterator#next()}.
+     */
+    private static final class BodyIterator implements Iterator<Object>, Closeable {
+
+        private final MappingIterator<Object> iterator;
+
+        private BodyIterator(MappingIterator<Object> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNext();
+            } catch (RuntimeException e) {
+                throw invalidBody(e);
+            }
+        }
+
+        @Override
+        public Object next() {
+            try {
+                return iterator.next();
+            } catch (RuntimeException e) {
+                throw invalidBody(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+
+        private static RuntimeException invalidBody(RuntimeException e) {
+            if (e instanceof RuntimeJsonMappingException || e.getCause() instanceof JsonProcessingException) {
+                return new BadRequestResponse("Invalid JSON body");
+            }
+            return e;
+        }
+    }
+
+    private static HttpResponseException payloadTooLarge() {
+        return new HttpResponseException(413, "Payload too large", Collections.emptyMap());
+    }
+
+}
@@ -0,0 +1,107 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.json.JavalinJson;
+import me.theminecoder.web.javalin.annotations.Streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Serializes the elements of an iterator as they're read, so only one element is ever held as JSON in memory.
+ * Javalin copies this to the response like any other result stream and closes it once done (or on error), which
+ * closes the source.
+ */
+final class JsonStreamInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte SEPARATOR = ',';
+    private static final byte NEWLINE = '\n';
+
+    private final Iterator<?> iterator;
+    private final AutoCloseable source;
+    private final Streaming.Format format;
+
+    private byte[] buffer;
+    private int position;
+    private boolean first = true;
+    private boolean finished;
+
+    JsonStreamInputStream(Iterator<?> iterator, AutoCloseable source, Streaming.Format format) {
+        this.iterator = iterator;
+        this.source = source;
+        this.format = format;
+        this.buffer = format == Streaming.Format.JSON_ARRAY ? ARRAY_START : EMPTY;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+
+        int read = 0;
+        while (read < len && fill()) {
+            int count = Math.min(len - read, buffer.length - position);
+            System.arraycopy(buffer, position, b, off + read, count);
+            position += count;
+            read += count;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        buffer = EMPTY;
+        position = 0;
+        if (source == null) return;
+
+        try {
+            source.close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private boolean fill() {
+        while (position >= buffer.length) {
+            if (finished) return false;
+
+            position = 0;
+            if (!iterator.hasNext()) {
+                finished = true;
+                buffer = format == Streaming.Format.JSON_ARRAY ? ARRAY_END : EMPTY;
+                continue;
+            }
+
+            byte[] json = JavalinJson.toJson(iterator.next()).getBytes(StandardCharsets.UTF_8);
+            boolean separate = format == Streaming.Format.NDJSON || !first;
+            buffer = new byte[json.length + (separate ? 1 : 0)];
+            if (format == Streaming.Format.NDJSON) {
+                System.arraycopy(json, 0, buffer, 0, json.length);
+                buffer[json.length] = NEWLINE;
+            } else {
+                if (separate) buffer[0] = SEPARATOR;
+                System.arraycopy(json, 0, buffer, separate ? 1 : 0, json.length);
+            }
+            first = false;
+        }
+        return true;
+    }
+
+}
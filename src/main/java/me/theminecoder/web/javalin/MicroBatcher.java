@@ -0,0 +1,209 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Batched;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the keys of a {@link Batched} route into windows and loads each window with a single call of the batch
+ * method. Equal keys in a window are loaded once.
+ */
+public final class MicroBatcher {
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "javalin-controllers-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Method batchMethod;
+    private final RouteInvoker invoker;
+    private final int maxSize;
+    private final long maxDelayNanos;
+
+    private Window window; //guarded by this
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0);
+
+    private MicroBatcher(Method batchMethod, int maxSize, long maxDelayNanos) {
+        this.batchMethod = batchMethod;
+        this.invoker = RouteInvoker.create(batchMethod);
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelayNanos;
+    }
+
+    /**
+     * Returns null when the method isn't {@link Batched}.
+     */
+    static MicroBatcher create(Method method, int boundParameters) {
+        Batched batched = method.getAnnotation(Batched.class);
+        if (batched == null) return null;
+
+        if (method.getParameterCount() != 1 || boundParameters != 1) {
+            throw new JavalinControllerException("@Batched controller method " + method + " must take exactly one bound parameter as its key");
+        }
+        if (batched.maxSize() <= 0 || batched.maxDelay() < 0) {
+            throw new JavalinControllerException("@Batched maxSize must be positive and maxDelay not negative on controller method " + method);
+        }
+
+        Method batchMethod;
+        try {
+            batchMethod = method.getDeclaringClass().getMethod(batched.value(), List.class);
+        } catch (NoSuchMethodException e) {
+            throw new JavalinControllerException("@Batched controller method " + method + " has no public batch method " + batched.value() + "(List)", e);
+        }
+        if (!List.class.isAssignableFrom(batchMethod.getReturnType()) && !CompletionStage.class.isAssignableFrom(batchMethod.getReturnType())) {
+            throw new JavalinControllerException("Batch method " + batchMethod + " must return a List or a CompletionStage of one");
+        }
+
+        return new MicroBatcher(batchMethod, batched.maxSize(), batched.unit().toNanos(batched.maxDelay()));
+    }
+
+    /**
+     * Adds the key to the open window, opening one on the given controller if there is none. The window is loaded
+     * on the executor of the request that fills or opened it.
+     */
+    CompletableFuture<Object> load(Object controller, Object key, Executor executor) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Window full = null;
+        synchronized (this) {
+            Window window = this.window;
+            if (window == null) {
+                window = this.window = new Window(controller);
+                Window opened = window;
+                window.timeout = timer.schedule(() -> flush(opened, executor), maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            window.waiters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(result);
+            if (window.waiters.size() >= maxSize) {
+                full = window;
+                this.window = null;
+            }
+        }
+
+        if (full != null) {
+            full.timeout.cancel(false);
+            fullBatches.increment();
+            Window batch = full;
+            try {
+                executor.execute(() -> run(batch));
+            } catch (RejectedExecutionException e) {
+                fail(batch, e);
+            }
+        }
+        return result;
+    }
+
+    private void flush(Window window, Executor executor) {
+        synchronized (this) {
+            if (this.window != window) return; //filled up and already loaded
+            this.window = null;
+        }
+        try {
+            executor.execute(() -> run(window));
+        } catch (RejectedExecutionException e) {
+            fail(window, e);
+        }
+    }
+
+    private void run(Window window) {
+        List<Object> batchKeys = new ArrayList<>(window.waiters.keySet());
+        int waiting = 0;
+        for (List<CompletableFuture<Object>> waiters : window.waiters.values()) waiting += waiters.size();
+        batches.increment();
+        keys.add(batchKeys.size());
+        requests.add(waiting);
+        maxBatchSize.accumulate(batchKeys.size());
+
+        Object result;
+        try {
+            result = invoker.invoke(window.controller, new Object[]{Collections.unmodifiableList(batchKeys)});
+        } catch (Throwable e) {
+            fail(window, e);
+            return;
+        }
+
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((loaded, error) -> {
+                if (error != null) fail(window, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                else complete(window, batchKeys, loaded);
+            });
+        } else {
+            complete(window, batchKeys, result);
+        }
+    }
+
+    private void complete(Window window, List<Object> batchKeys, Object loaded) {
+        if (!(loaded instanceof List) || ((List<?>) loaded).size() != batchKeys.size()) {
+            fail(window, new JavalinControllerException("Batch method " + batchMethod + " returned " + (loaded instanceof List ? ((List<?>) loaded).size() + " results" : loaded) + " for " + batchKeys.size() + " keys"));
+            return;
+        }
+
+        List<?> results = (List<?>) loaded;
+        for (int i = 0; i < batchKeys.size(); i++) {
+            for (CompletableFuture<Object> waiter : window.waiters.get(batchKeys.get(i))) waiter.complete(results.get(i));
+        }
+    }
+
+    private static void fail(Window window, Throwable error) {
+        for (List<CompletableFuture<Object>> waiters : window.waiters.values()) {
+            for (CompletableFuture<Object> waiter : waiters) waiter.completeExceptionally(error);
+        }
+    }
+
+    public Method getBatchMethod() {
+        return batchMethod;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Distinct keys loaded over all batches.
+     */
+    public long getKeyCount() {
+        return keys.sum();
+    }
+
+    /**
+     * Requests served by batches, which is more than the key count when requests shared a key.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Batches loaded because they hit {@link #getMaxSize()} rather than the delay.
+     */
+    public long getFullBatchCount() {
+        return fullBatches.sum();
+    }
+
+    public long getLargestBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    private static final class Window {
+
+        private final Object controller;
+        private final Map<Object, List<CompletableFuture<Object>>> waiters = new LinkedHashMap<>();
+        private ScheduledFuture<?> timeout;
+
+        private Window(Object controller) {
+            this.controller = controller;
+        }
+    }
+
+}
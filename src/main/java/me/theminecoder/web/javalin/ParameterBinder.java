@@ -0,0 +1,10 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+
+@FunctionalInterface
+public interface ParameterBinder {
+
+    public Object bind(Context ctx);
+
+}
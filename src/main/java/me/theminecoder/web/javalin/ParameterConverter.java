@@ -0,0 +1,12 @@
+package me.theminecoder.web.javalin;
+
+/**
+ * Converts a raw request value (query, form, path param or body) to a parameter type. Converters are looked up
+ * once per parameter when a route is registered and are never called with a null value.
+ */
+@FunctionalInterface
+public interface ParameterConverter<T> {
+
+    public T convert(String value);
+
+}
@@ -17,4 +17,13 @@ public interface ParameterMapper<T extends Annotation> {
         return map(ctx, annotation, argType, originalParameter);
     }
 
+    /**
+     * Called once per parameter when a route is registered. Mappers that can resolve anything ahead of time
+     * (generic types, default values, converters) should override this and return a binder that only does the
+     * per request work.
+     */
+    public default ParameterBinder binder(T annotation, Class<?> argType, Parameter originalParameter, boolean optional) {
+        return ctx -> map(ctx, annotation, argType, originalParameter, optional);
+    }
+
 }
@@ -0,0 +1,78 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+
+import java.util.regex.Pattern;
+
+/**
+ * Javalin's path matching, for matching paths outside of Javalin: path parameters match one segment and wildcards
+ * match anything.
+ */
+final class PathPatterns {
+
+    enum Overlap {
+        /**
+         * Every path the route matches is matched by the filter.
+         */
+        ALWAYS,
+        /**
+         * Some paths of the route may be matched by the filter, only the request path can tell.
+         */
+        SOMETIMES,
+        NEVER
+    }
+
+    private PathPatterns() {
+    }
+
+    /**
+     * The request path routes are matched against, without the servlet context path.
+     */
+    static String requestPath(Context ctx) {
+        String path = ctx.req.getRequestURI();
+        String contextPath = ctx.req.getContextPath();
+        if (contextPath != null && path.startsWith(contextPath)) path = path.substring(contextPath.length());
+        return path;
+    }
+
+    static Pattern compile(String path) {
+        StringBuilder regex = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            regex.append('/');
+            if (segment.startsWith(":")) {
+                regex.append("[^/]+?");
+                continue;
+            }
+            String[] parts = segment.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) regex.append(".*?");
+                if (!parts[i].isEmpty()) regex.append(Pattern.quote(parts[i]));
+            }
+        }
+        return Pattern.compile(regex.append("/?").toString());
+    }
+
+    /**
+     * How the paths matched by a filter overlap with those matched by a route.
+     */
+    static Overlap overlap(String filterPath, String routePath) {
+        if (!routePath.contains("*") && compile(filterPath).matcher(routePath).matches()) return Overlap.ALWAYS;
+        if (filterPath.contains("*") || routePath.contains("*")) return Overlap.SOMETIMES;
+
+        String[] filterSegments = segments(filterPath);
+        String[] routeSegments = segments(routePath);
+        if (filterSegments.length != routeSegments.length) return Overlap.NEVER;
+        for (int i = 0; i < filterSegments.length; i++) {
+            if (!filterSegments[i].equals(routeSegments[i]) && !filterSegments[i].startsWith(":") && !routeSegments[i].startsWith(":")) {
+                return Overlap.NEVER;
+            }
+        }
+        return Overlap.SOMETIMES;
+    }
+
+    private static String[] segments(String path) {
+        return path.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+}
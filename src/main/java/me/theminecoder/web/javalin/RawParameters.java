@@ -0,0 +1,78 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.annotations.parameters.Form;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the unconverted request value behind a {@code @Query}, {@code @Path} or {@code @Form} parameter, for
+ * features that have to look at a parameter before it is bound. Default values are applied, so the value is the
+ * one the parameter is converted from.
+ */
+final class RawParameters {
+
+    private RawParameters() {
+    }
+
+    /**
+     * Returns the reader for the parameter, or null if it isn't bound from a single raw value.
+     */
+    static Function<Context, String> reader(Parameter parameter) {
+        for (Annotation annotation : parameter.getAnnotations()) {
+            if (annotation instanceof Query) {
+                Query query = (Query) annotation;
+                String defaultValue = defaultValue(query.defaultValue());
+                return ctx -> ctx.queryParam(query.value(), defaultValue);
+            } else if (annotation instanceof Path) {
+                String name = ((Path) annotation).value();
+                return ctx -> ctx.pathParam(name);
+            } else if (annotation instanceof Form) {
+                Form form = (Form) annotation;
+                String defaultValue = defaultValue(form.defaultValue());
+                return ctx -> ctx.formParam(form.value(), defaultValue);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Readers for all parameters of the method that have one, by the name given in their annotation.
+     */
+    static Map<String, Function<Context, String>> readers(Method method) {
+        Map<String, Function<Context, String>> readers = new LinkedHashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            Function<Context, String> reader = reader(parameter);
+            if (reader != null) readers.put(name(parameter), reader);
+        }
+        return readers;
+    }
+
+    /**
+     * The default value of a {@code @Query} or {@code @Form} annotation, null when it has none.
+     */
+    static String defaultValue(String defaultValue) {
+        return defaultValue.isEmpty() ? null : defaultValue;
+    }
+
+    /**
+     * The name given in the parameter's {@code @Query}, {@code @Path} or {@code @Form} annotation, null if it has
+     * none of them.
+     */
+    static String name(Parameter parameter) {
+        Query query = parameter.getAnnotation(Query.class);
+        if (query != null) return query.value();
+        Path path = parameter.getAnnotation(Path.class);
+        if (path != null) return path.value();
+        Form form = parameter.getAnnotation(Form.class);
+        return form != null ? form.value() : null;
+    }
+
+}
@@ -1,5 +1,8 @@
 package me.theminecoder.web.javalin;
 
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
@@ -8,11 +11,23 @@ public class RegisteredRoute {
     private String path;
     private Class<? extends Annotation> routeMethodType;
     private Method method;
+    private InvocationStrategy invocationStrategy;
+    private RouteMetrics metrics;
+    private ResponseCache responseCache;
+    private RouteLimits limits;
+    private MicroBatcher batcher;
+    private boolean head;
 
-    RegisteredRoute(String path, Class<? extends Annotation> routeMethodType, Method method) {
+    RegisteredRoute(String path, Class<? extends Annotation> routeMethodType, Method method, InvocationStrategy invocationStrategy, RouteMetrics metrics, ResponseCache responseCache, RouteLimits limits, MicroBatcher batcher, boolean head) {
         this.path = path;
         this.routeMethodType = routeMethodType;
         this.method = method;
+        this.invocationStrategy = invocationStrategy;
+        this.metrics = metrics;
+        this.responseCache = responseCache;
+        this.limits = limits;
+        this.batcher = batcher;
+        this.head = head;
     }
 
     public String getPath() {
@@ -26,4 +41,48 @@ public class RegisteredRoute {
     public Method getMethod() {
         return method;
     }
+
+    public InvocationStrategy getInvocationStrategy() {
+        return invocationStrategy;
+    }
+
+    public RouteMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The response cache of a {@code @Cacheable} route, null for other routes.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * The {@code @MaxConcurrent}/{@code @RateLimit} limits of the route, null if it has none.
+     */
+    public RouteLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * The batcher of a {@code @Batched} route, null for other routes.
+     */
+    public MicroBatcher getBatcher() {
+        return batcher;
+    }
+
+    /**
+     * Whether the route answers HEAD requests too, which GET routes sending files do unless their controller has
+     * a HEAD route for the same path.
+     */
+    public boolean isAnsweringHead() {
+        return head;
+    }
+
+    /**
+     * Whether the route is a before/after method Javalin runs as a filter rather than a route.
+     */
+    public boolean isFilter() {
+        return routeMethodType == Before.class || routeMethodType == After.class;
+    }
 }
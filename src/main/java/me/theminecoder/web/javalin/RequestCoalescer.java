@@ -0,0 +1,56 @@
+package me.theminecoder.web.javalin;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Single flight calls for {@link me.theminecoder.web.javalin.annotations.Coalesce} routes, keyed on the bound
+ * arguments.
+ */
+final class RequestCoalescer {
+
+    private final Map<List<Object>, CompletableFuture<Shared>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the in flight call for the arguments, or starts one by handing a new future to the leader, which has
+     * to complete it.
+     */
+    CompletableFuture<Shared> join(Object[] args, Consumer<CompletableFuture<Shared>> leader) {
+        List<Object> key = Arrays.asList(args);
+        CompletableFuture<Shared> shared = inFlight.get(key);
+        if (shared != null) return shared;
+
+        CompletableFuture<Shared> created = new CompletableFuture<>();
+        shared = inFlight.putIfAbsent(key, created);
+        if (shared != null) return shared;
+
+        created.whenComplete((result, error) -> inFlight.remove(key, created));
+        try {
+            leader.accept(created);
+        } catch (Throwable e) {
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * A serialized response shared by every coalesced request. The body is a String, bytes or null.
+     */
+    static final class Shared {
+
+        final Object body;
+        final String contentType;
+        final ConditionalResponse conditional;
+
+        Shared(Object body, String contentType, ConditionalResponse conditional) {
+            this.body = body;
+            this.contentType = contentType;
+            this.conditional = conditional;
+        }
+    }
+
+}
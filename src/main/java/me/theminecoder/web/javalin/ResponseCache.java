@@ -0,0 +1,168 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Cacheable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Per route LRU cache of serialized responses for {@link Cacheable} routes.
+ */
+public final class ResponseCache {
+
+    private final int[] keyParameters;
+    private final int[] otherParameters;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<List<Object>, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ResponseCache(int[] keyParameters, int[] otherParameters, long ttlNanos, int maxEntries) {
+        this.keyParameters = keyParameters;
+        this.otherParameters = otherParameters;
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                if (size() <= ResponseCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    static ResponseCache create(Method method, Cacheable cacheable, Set<Class<? extends Annotation>> mappedAnnotations) {
+        if (cacheable.ttl() <= 0 || cacheable.maxEntries() <= 0) {
+            throw new JavalinControllerException("@Cacheable ttl and maxEntries must be positive on controller method " + method);
+        }
+
+        Parameter[] parameters = method.getParameters();
+        Map<String, Integer> keyable = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i++) {
+            String name = RawParameters.name(parameters[i]);
+            if (name != null) {
+                keyable.put(name, i);
+            } else if (cacheable.key().length == 0 && Arrays.stream(parameters[i].getAnnotations()).anyMatch(annotation -> mappedAnnotations.contains(annotation.annotationType()))) {
+                throw new JavalinControllerException("Parameter \"" + parameters[i].getName() + "\" on @Cacheable controller method " + method
+                        + " can't be part of the cache key, list the key parameters explicitly");
+            }
+        }
+
+        List<Integer> keyParameters = new ArrayList<>();
+        if (cacheable.key().length == 0) {
+            keyParameters.addAll(keyable.values());
+        } else {
+            for (String name : cacheable.key()) {
+                Integer index = keyable.get(name);
+                if (index == null) {
+                    throw new JavalinControllerException("@Cacheable key \"" + name + "\" isn't a @Query, @Path or @Form parameter of controller method " + method);
+                }
+                keyParameters.add(index);
+            }
+        }
+
+        int[] otherParameters = IntStream.range(0, parameters.length).filter(index -> !keyParameters.contains(index)).toArray();
+        return new ResponseCache(keyParameters.stream().mapToInt(Integer::intValue).toArray(), otherParameters, cacheable.unit().toNanos(cacheable.ttl()), cacheable.maxEntries());
+    }
+
+    /**
+     * Indexes of the method parameters that make up the key, bound before the lookup.
+     */
+    int[] getKeyParameters() {
+        return keyParameters;
+    }
+
+    /**
+     * Indexes of the method parameters outside the key, only bound when the method is called.
+     */
+    int[] getOtherParameters() {
+        return otherParameters;
+    }
+
+    List<Object> key(Object[] args) {
+        Object[] key = new Object[keyParameters.length];
+        for (int i = 0; i < keyParameters.length; i++) {
+            key[i] = args[keyParameters[i]];
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Returns the cached response for the key, or null if there is none or it has expired.
+     */
+    Entry get(List<Object> key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    void put(List<Object> key, byte[] body, String contentType, String etag) {
+        Entry entry = new Entry(body, contentType, etag, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries dropped to stay under {@link Cacheable#maxEntries()}, not counting expired ones.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    static final class Entry {
+
+        final byte[] body;
+        final String contentType;
+        final String etag;
+        final long expiresAt;
+
+        private Entry(byte[] body, String contentType, String etag, long expiresAt) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,262 @@
+package me.theminecoder.web.javalin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls a controller method. Exceptions thrown by the controller method are rethrown as is, never wrapped.
+ * <p>
+ * Every route shares the call site in {@link RoutePlan}, so it goes megamorphic once an app has a few routes. That
+ * costs a couple of nanoseconds per call ({@code InvokerBenchmark}), which a per route call site would only win back
+ * with generated bytecode, and a switch over the arities measured slower than this.
+ */
+abstract class RouteInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteInvoker.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final InvocationStrategy strategy;
+
+    private RouteInvoker(InvocationStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    InvocationStrategy getStrategy() {
+        return strategy;
+    }
+
+    abstract Object invoke(Object controller, Object[] args) throws Throwable;
+
+    static RouteInvoker generated(GeneratedRoute.Invoker invoker) {
+        return new RouteInvoker(InvocationStrategy.GENERATED) {
+            @Override
+            Object invoke(Object controller, Object[] args) throws Throwable {
+                return invoker.invoke(controller, args);
+            }
+        };
+    }
+
+    static RouteInvoker create(Method method) {
+        if (canSpinLambda(method)) {
+            try {
+                return lambdaInvoker(method);
+            } catch (Throwable e) {
+                logger.debug("Couldn't spin a lambda for " + method + ", falling back to a method handle", e);
+            }
+        }
+
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method)
+                    .asType(MethodType.genericMethodType(method.getParameterCount() + 1))
+                    .asSpreader(Object[].class, method.getParameterCount());
+            return new RouteInvoker(InvocationStrategy.METHOD_HANDLE) {
+                @Override
+                Object invoke(Object controller, Object[] args) throws Throwable {
+                    return handle.invokeExact(controller, args);
+                }
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            logger.debug("Couldn't create a method handle for " + method + ", falling back to reflection", e);
+        }
+
+        return new RouteInvoker(InvocationStrategy.REFLECTION) {
+            @Override
+            Object invoke(Object controller, Object[] args) throws Throwable {
+                try {
+                    return method.invoke(controller, args);
+                } catch (IllegalAccessException e) {
+                    throw new JavalinControllerException("Error invoking controller method", e);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+        };
+    }
+
+    /**
+     * Spun lambdas are linked against our own class loader, so everything in the signature has to be public and
+     * visible from it or the call site would only fail on the first request.
+     */
+    private static boolean canSpinLambda(Method method) {
+        if (method.getParameterCount() > 4) return false;
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) return false;
+        if (!isLinkable(method.getDeclaringClass()) || !isLinkable(method.getReturnType())) return false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isLinkable(parameterType)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isLinkable(Class<?> type) {
+        while (type.isArray()) type = type.getComponentType();
+        if (type.isPrimitive()) return true;
+        if (!Modifier.isPublic(type.getModifiers())) return false;
+        try {
+            return Class.forName(type.getName(), false, RouteInvoker.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static RouteInvoker lambdaInvoker(Method method) throws Throwable {
+        MethodHandle implementation = LOOKUP.unreflect(method);
+        boolean returnsVoid = method.getReturnType() == void.class;
+        MethodType instantiatedType = implementation.type().wrap();
+        if (returnsVoid) instantiatedType = instantiatedType.changeReturnType(void.class);
+
+        Class<?> invokerType = returnsVoid ? VOID_INVOKERS[method.getParameterCount()] : INVOKERS[method.getParameterCount()];
+        MethodType samType = MethodType.genericMethodType(method.getParameterCount() + 1);
+        if (returnsVoid) samType = samType.changeReturnType(void.class);
+
+        Object target = LambdaMetafactory.metafactory(LOOKUP, "invoke", MethodType.methodType(invokerType),
+                samType, implementation, instantiatedType).getTarget().invoke();
+
+        switch (method.getParameterCount()) {
+            case 0:
+                if (returnsVoid) {
+                    VoidInvoker0 invoker = (VoidInvoker0) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            invoker.invoke(controller);
+                            return null;
+                        }
+                    };
+                } else {
+                    Invoker0 invoker = (Invoker0) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            return invoker.invoke(controller);
+                        }
+                    };
+                }
+            case 1:
+                if (returnsVoid) {
+                    VoidInvoker1 invoker = (VoidInvoker1) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            invoker.invoke(controller, args[0]);
+                            return null;
+                        }
+                    };
+                } else {
+                    Invoker1 invoker = (Invoker1) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            return invoker.invoke(controller, args[0]);
+                        }
+                    };
+                }
+            case 2:
+                if (returnsVoid) {
+                    VoidInvoker2 invoker = (VoidInvoker2) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            invoker.invoke(controller, args[0], args[1]);
+                            return null;
+                        }
+                    };
+                } else {
+                    Invoker2 invoker = (Invoker2) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            return invoker.invoke(controller, args[0], args[1]);
+                        }
+                    };
+                }
+            case 3:
+                if (returnsVoid) {
+                    VoidInvoker3 invoker = (VoidInvoker3) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            invoker.invoke(controller, args[0], args[1], args[2]);
+                            return null;
+                        }
+                    };
+                } else {
+                    Invoker3 invoker = (Invoker3) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            return invoker.invoke(controller, args[0], args[1], args[2]);
+                        }
+                    };
+                }
+            default:
+                if (returnsVoid) {
+                    VoidInvoker4 invoker = (VoidInvoker4) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            invoker.invoke(controller, args[0], args[1], args[2], args[3]);
+                            return null;
+                        }
+                    };
+                } else {
+                    Invoker4 invoker = (Invoker4) target;
+                    return new RouteInvoker(InvocationStrategy.LAMBDA) {
+                        @Override
+                        Object invoke(Object controller, Object[] args) {
+                            return invoker.invoke(controller, args[0], args[1], args[2], args[3]);
+                        }
+                    };
+                }
+        }
+    }
+
+    private static final Class<?>[] INVOKERS = {Invoker0.class, Invoker1.class, Invoker2.class, Invoker3.class, Invoker4.class};
+    private static final Class<?>[] VOID_INVOKERS = {VoidInvoker0.class, VoidInvoker1.class, VoidInvoker2.class, VoidInvoker3.class, VoidInvoker4.class};
+
+    interface Invoker0 {
+        Object invoke(Object controller);
+    }
+
+    interface Invoker1 {
+        Object invoke(Object controller, Object a0);
+    }
+
+    interface Invoker2 {
+        Object invoke(Object controller, Object a0, Object a1);
+    }
+
+    interface Invoker3 {
+        Object invoke(Object controller, Object a0, Object a1, Object a2);
+    }
+
+    interface Invoker4 {
+        Object invoke(Object controller, Object a0, Object a1, Object a2, Object a3);
+    }
+
+    interface VoidInvoker0 {
+        void invoke(Object controller);
+    }
+
+    interface VoidInvoker1 {
+        void invoke(Object controller, Object a0);
+    }
+
+    interface VoidInvoker2 {
+        void invoke(Object controller, Object a0, Object a1);
+    }
+
+    interface VoidInvoker3 {
+        void invoke(Object controller, Object a0, Object a1, Object a2);
+    }
+
+    interface VoidInvoker4 {
+        void invoke(Object controller, Object a0, Object a1, Object a2, Object a3);
+    }
+
+}
@@ -0,0 +1,176 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import io.javalin.HttpResponseException;
+import io.javalin.ServiceUnavailableResponse;
+import me.theminecoder.web.javalin.annotations.MaxConcurrent;
+import me.theminecoder.web.javalin.annotations.RateLimit;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The {@link MaxConcurrent} and {@link RateLimit} limits of a route, checked before anything else runs for a
+ * request. Both are lock free: the concurrency limit is a counter and each rate limit bucket is a single atomic
+ * holding when it will next be full (GCRA).
+ */
+public final class RouteLimits {
+
+    private static final int MIN_SWEEP_SIZE = 1024;
+
+    private final int maxConcurrent;
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final long intervalNanos;
+    private final long periodNanos;
+    private final Function<Context, String> rateLimitKey;
+    private final AtomicLong routeBucket = new AtomicLong(Long.MIN_VALUE);
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile int sweepAt = MIN_SWEEP_SIZE;
+
+    private final LongAdder concurrencyRejections = new LongAdder();
+    private final LongAdder rateLimitRejections = new LongAdder();
+
+    private RouteLimits(int maxConcurrent, long intervalNanos, long periodNanos, Function<Context, String> rateLimitKey) {
+        this.maxConcurrent = maxConcurrent;
+        this.intervalNanos = intervalNanos;
+        this.periodNanos = periodNanos;
+        this.rateLimitKey = rateLimitKey;
+    }
+
+    /**
+     * Returns null when the method has neither limit.
+     */
+    static RouteLimits create(Method method) {
+        MaxConcurrent maxConcurrent = method.getAnnotation(MaxConcurrent.class);
+        RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+        if (maxConcurrent == null && rateLimit == null) return null;
+
+        if (maxConcurrent != null && maxConcurrent.value() <= 0) {
+            throw new JavalinControllerException("@MaxConcurrent must be positive on controller method " + method);
+        }
+        if (rateLimit == null) return new RouteLimits(maxConcurrent.value(), 0, 0, null);
+
+        if (rateLimit.permits() <= 0 || rateLimit.per() <= 0) {
+            throw new JavalinControllerException("@RateLimit permits and per must be positive on controller method " + method);
+        }
+
+        Function<Context, String> key = null;
+        switch (rateLimit.key()) {
+            case CLIENT_IP:
+                key = Context::ip;
+                break;
+            case PARAMETER:
+                key = RawParameters.readers(method).get(rateLimit.parameter());
+                if (key == null) {
+                    throw new JavalinControllerException("@RateLimit parameter \"" + rateLimit.parameter() + "\" isn't a @Query, @Path or @Form parameter of controller method " + method);
+                }
+                break;
+        }
+
+        long periodNanos = rateLimit.unit().toNanos(rateLimit.per());
+        return new RouteLimits(maxConcurrent != null ? maxConcurrent.value() : 0, Math.max(1, periodNanos / rateLimit.permits()), periodNanos, key);
+    }
+
+    /**
+     * Throws the rejection if the request is over a limit. Otherwise {@link #release()} has to be called once the
+     * request is done.
+     */
+    void acquire(Context ctx) {
+        // Concurrency first, so a request turned away for it doesn't use up a rate limit token
+        if (maxConcurrent > 0 && active.incrementAndGet() > maxConcurrent) {
+            active.decrementAndGet();
+            concurrencyRejections.increment();
+            throw new ServiceUnavailableResponse("Too many concurrent requests");
+        }
+
+        if (periodNanos > 0) {
+            long waitNanos = tryTake(bucket(ctx));
+            if (waitNanos > 0) {
+                release();
+                rateLimitRejections.increment();
+                ctx.header("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1))));
+                throw new HttpResponseException(429, "Too many requests", Collections.emptyMap());
+            }
+        }
+    }
+
+    void release() {
+        if (maxConcurrent > 0) active.decrementAndGet();
+    }
+
+    private AtomicLong bucket(Context ctx) {
+        if (rateLimitKey == null) return routeBucket;
+
+        String key = rateLimitKey.apply(ctx);
+        if (key == null) return routeBucket;
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+            if (buckets.size() > sweepAt) sweep();
+        }
+        return bucket;
+    }
+
+    /**
+     * Takes a token, returning 0 or how long until one is available. The bucket holds the time it will be full
+     * again, which may be at most one period ahead.
+     */
+    private long tryTake(AtomicLong bucket) {
+        return tryTake(bucket, System.nanoTime());
+    }
+
+    long tryTake(AtomicLong bucket, long now) {
+        while (true) {
+            long full = bucket.get();
+            long next = (full == Long.MIN_VALUE || full - now < 0 ? now : full) + intervalNanos;
+            if (next - now > periodNanos) return next - now - periodNanos;
+            if (bucket.compareAndSet(full, next)) return 0;
+        }
+    }
+
+    /**
+     * Drops keyed buckets that are full again, as they are the same as a new bucket.
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            long now = System.nanoTime();
+            for (Iterator<AtomicLong> iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+                long full = iterator.next().get();
+                if (full == Long.MIN_VALUE || full - now <= 0) iterator.remove();
+            }
+            sweepAt = Math.max(MIN_SWEEP_SIZE, buckets.size() * 2);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActiveRequests() {
+        return active.get();
+    }
+
+    public long getConcurrencyRejections() {
+        return concurrencyRejections.sum();
+    }
+
+    public long getRateLimitRejections() {
+        return rateLimitRejections.sum();
+    }
+
+}
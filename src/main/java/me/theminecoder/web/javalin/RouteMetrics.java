@@ -0,0 +1,58 @@
+package me.theminecoder.web.javalin;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and latency for a single {@link RegisteredRoute}. Latency covers binding, validation, the
+ * controller method and writing the result, and for async routes runs until the result future completes. Requests
+ * failing with something other than an {@link io.javalin.HttpResponseException} are recorded with the status the
+ * app's exception handlers answer them with.
+ */
+public final class RouteMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RouteMetrics() {
+    }
+
+    void record(int status, long nanos) {
+        requests.increment();
+        LongAdder statusCount = statuses.get(status);
+        if (statusCount == null) {
+            statusCount = statuses.computeIfAbsent(status, key -> new LongAdder());
+        }
+        statusCount.increment();
+        latency.record(nanos);
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Requests that ended with a 4xx or 5xx status, including those that threw.
+     */
+    public long getErrorCount() {
+        long errors = 0;
+        for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+            if (entry.getKey() >= 400) errors += entry.getValue().sum();
+        }
+        return errors;
+    }
+
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+}
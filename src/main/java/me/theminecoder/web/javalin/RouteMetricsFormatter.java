@@ -0,0 +1,128 @@
+package me.theminecoder.web.javalin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+final class RouteMetricsFormatter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private RouteMetricsFormatter() {
+    }
+
+    static String format(List<RegisteredRoute> allRoutes) {
+        List<RegisteredRoute> routes = allRoutes.stream().filter(route -> !route.isFilter()).collect(Collectors.toList());
+        StringBuilder out = new StringBuilder();
+
+        out.append("# TYPE javalin_route_requests_total counter\n");
+        for (RegisteredRoute route : routes) {
+            out.append("javalin_route_requests_total{").append(labels(route)).append("} ").append(route.getMetrics().getRequestCount()).append('\n');
+        }
+
+        out.append("# TYPE javalin_route_responses_total counter\n");
+        for (RegisteredRoute route : routes) {
+            for (Map.Entry<Integer, Long> status : route.getMetrics().getStatusCounts().entrySet()) {
+                out.append("javalin_route_responses_total{").append(labels(route)).append(",status=\"").append(status.getKey()).append("\"} ").append(status.getValue()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_latency_seconds summary\n");
+        for (RegisteredRoute route : routes) {
+            LatencyHistogram latency = route.getMetrics().getLatency();
+            for (double quantile : QUANTILES) {
+                out.append("javalin_route_latency_seconds{").append(labels(route)).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(latency.getValueAtPercentile(quantile * 100))).append('\n');
+            }
+            out.append("javalin_route_latency_seconds_sum{").append(labels(route)).append("} ").append(seconds(latency.getTotalNanos())).append('\n');
+            out.append("javalin_route_latency_seconds_count{").append(labels(route)).append("} ").append(latency.getCount()).append('\n');
+        }
+
+        out.append("# TYPE javalin_route_cache_requests_total counter\n");
+        for (RegisteredRoute route : routes) {
+            ResponseCache cache = route.getResponseCache();
+            if (cache == null) continue;
+            out.append("javalin_route_cache_requests_total{").append(labels(route)).append(",result=\"hit\"} ").append(cache.getHitCount()).append('\n');
+            out.append("javalin_route_cache_requests_total{").append(labels(route)).append(",result=\"miss\"} ").append(cache.getMissCount()).append('\n');
+        }
+
+        out.append("# TYPE javalin_route_cache_evictions_total counter\n");
+        for (RegisteredRoute route : routes) {
+            ResponseCache cache = route.getResponseCache();
+            if (cache != null) {
+                out.append("javalin_route_cache_evictions_total{").append(labels(route)).append("} ").append(cache.getEvictionCount()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_cache_entries gauge\n");
+        for (RegisteredRoute route : routes) {
+            ResponseCache cache = route.getResponseCache();
+            if (cache != null) {
+                out.append("javalin_route_cache_entries{").append(labels(route)).append("} ").append(cache.getSize()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_rejections_total counter\n");
+        for (RegisteredRoute route : routes) {
+            RouteLimits limits = route.getLimits();
+            if (limits == null) continue;
+            out.append("javalin_route_rejections_total{").append(labels(route)).append(",reason=\"concurrency\"} ").append(limits.getConcurrencyRejections()).append('\n');
+            out.append("javalin_route_rejections_total{").append(labels(route)).append(",reason=\"rate_limit\"} ").append(limits.getRateLimitRejections()).append('\n');
+        }
+
+        out.append("# TYPE javalin_route_active_requests gauge\n");
+        for (RegisteredRoute route : routes) {
+            RouteLimits limits = route.getLimits();
+            if (limits != null && limits.getMaxConcurrent() > 0) {
+                out.append("javalin_route_active_requests{").append(labels(route)).append("} ").append(limits.getActiveRequests()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_batches_total counter\n");
+        for (RegisteredRoute route : routes) {
+            MicroBatcher batcher = route.getBatcher();
+            if (batcher == null) continue;
+            out.append("javalin_route_batches_total{").append(labels(route)).append(",trigger=\"size\"} ").append(batcher.getFullBatchCount()).append('\n');
+            out.append("javalin_route_batches_total{").append(labels(route)).append(",trigger=\"delay\"} ").append(batcher.getBatchCount() - batcher.getFullBatchCount()).append('\n');
+        }
+
+        out.append("# TYPE javalin_route_batch_keys_total counter\n");
+        for (RegisteredRoute route : routes) {
+            MicroBatcher batcher = route.getBatcher();
+            if (batcher != null) {
+                out.append("javalin_route_batch_keys_total{").append(labels(route)).append("} ").append(batcher.getKeyCount()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_batch_requests_total counter\n");
+        for (RegisteredRoute route : routes) {
+            MicroBatcher batcher = route.getBatcher();
+            if (batcher != null) {
+                out.append("javalin_route_batch_requests_total{").append(labels(route)).append("} ").append(batcher.getRequestCount()).append('\n');
+            }
+        }
+
+        out.append("# TYPE javalin_route_batch_size_max gauge\n");
+        for (RegisteredRoute route : routes) {
+            MicroBatcher batcher = route.getBatcher();
+            if (batcher != null) {
+                out.append("javalin_route_batch_size_max{").append(labels(route)).append("} ").append(batcher.getLargestBatchSize()).append('\n');
+            }
+        }
+
+        return out.toString();
+    }
+
+    private static String labels(RegisteredRoute route) {
+        return "method=\"" + route.getRouteMethodType().getSimpleName() + "\",path=\"" + escape(route.getPath()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000D);
+    }
+
+}
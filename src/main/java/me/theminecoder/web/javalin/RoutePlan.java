@@ -0,0 +1,377 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.BadRequestResponse;
+import io.javalin.Context;
+import io.javalin.HttpResponseException;
+import me.theminecoder.web.javalin.annotations.Batched;
+import me.theminecoder.web.javalin.annotations.Cacheable;
+import me.theminecoder.web.javalin.annotations.Coalesce;
+import me.theminecoder.web.javalin.annotations.ETag;
+import me.theminecoder.web.javalin.annotations.Streaming;
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.RequestContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Everything {@link ControllerRegistry} needs to call a controller method, resolved once at registration time so
+ * the per request path is a flat loop over arrays.
+ */
+final class RoutePlan {
+
+    private static final Map<Class, Class> primitiveObjectTypes = new HashMap<Class, Class>() {{
+        put(byte.class, Byte.class);
+        put(char.class, Character.class);
+        put(short.class, Short.class);
+        put(int.class, Integer.class);
+        put(long.class, Long.class);
+        put(float.class, Float.class);
+        put(double.class, Double.class);
+        put(boolean.class, Boolean.class);
+    }};
+
+    private final Method method;
+    private final RouteInvoker invoker;
+    private final ParameterPlan[] parameters;
+    private final int[] allParameters;
+    private final Predicate<Context>[] methodValidators;
+    private final boolean pipeline;
+    private final Streaming.Format streamingFormat;
+    private final List<String> parameterNames;
+    private final ResponseCache cache;
+    private final boolean etag;
+    private final RouteLimits limits;
+    private final RequestCoalescer coalescer;
+    private final MicroBatcher batcher;
+    private final boolean fileResponse;
+
+    private RoutePlan(Method method, RouteInvoker invoker, ParameterPlan[] parameters, Predicate<Context>[] methodValidators, boolean pipeline, Streaming.Format streamingFormat, ResponseCache cache, boolean etag, RouteLimits limits, RequestCoalescer coalescer, MicroBatcher batcher, boolean fileResponse) {
+        this.method = method;
+        this.invoker = invoker;
+        this.parameters = parameters;
+        this.allParameters = IntStream.range(0, parameters.length).toArray();
+        this.methodValidators = methodValidators;
+        this.pipeline = pipeline;
+        this.streamingFormat = streamingFormat;
+        this.cache = cache;
+        this.etag = etag;
+        this.limits = limits;
+        this.coalescer = coalescer;
+        this.batcher = batcher;
+        this.fileResponse = fileResponse;
+
+        List<String> parameterNames = new ArrayList<>(parameters.length);
+        for (ParameterPlan parameter : parameters) parameterNames.add(parameter.description);
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+    }
+
+    static RoutePlan compile(Class<?> controllerClass, Method method, RouteInvoker invoker,
+                             Map<Class<? extends Annotation>, ParameterMapper<?>> parameterMappers,
+                             Map<Class<? extends Annotation>, Function<?, Predicate<Object>>> parameterValidators,
+                             Map<Class<? extends Annotation>, BiPredicate<?, Context>> methodValidators) {
+        Parameter[] methodParameters = method.getParameters();
+        ParameterPlan[] parameters = new ParameterPlan[methodParameters.length];
+        for (int i = 0; i < methodParameters.length; i++) {
+            try {
+                parameters[i] = compileParameter(methodParameters[i], parameterMappers, parameterValidators);
+            } catch (RuntimeException e) {
+                throw new JavalinControllerException("Error processing parameter \"" + methodParameters[i].getName() + "\" on controller method " + method, e);
+            }
+        }
+
+        List<Predicate<Context>> validators = new ArrayList<>();
+        for (Annotation annotation : method.getAnnotations()) {
+            //noinspection unchecked
+            BiPredicate<Annotation, Context> validator = (BiPredicate<Annotation, Context>) methodValidators.get(annotation.annotationType());
+            if (validator != null) validators.add(ctx -> validator.test(annotation, ctx));
+        }
+
+        boolean pipeline = method.getReturnType() == Void.class || method.getAnnotation(Before.class) != null || method.getAnnotation(After.class) != null;
+
+        Streaming streaming = method.getAnnotation(Streaming.class);
+        Streaming.Format streamingFormat = streaming != null ? streaming.value() : Streaming.Format.JSON_ARRAY;
+
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        if (cacheable != null && pipeline) {
+            throw new JavalinControllerException("@Cacheable can't be used on before/after or Void controller method " + method);
+        }
+        ResponseCache cache = cacheable != null ? ResponseCache.create(method, cacheable, parameterMappers.keySet()) : null;
+
+        if (pipeline && method.getAnnotation(ETag.class) != null) {
+            throw new JavalinControllerException("@ETag can't be used on before/after or Void controller method " + method);
+        }
+        boolean etag = !pipeline && (method.getAnnotation(ETag.class) != null || classAnnotation(controllerClass, method, ETag.class) != null);
+
+        RouteLimits limits = RouteLimits.create(method);
+        if (limits != null && pipeline) {
+            throw new JavalinControllerException("@MaxConcurrent and @RateLimit can't be used on before/after or Void controller method " + method);
+        }
+
+        RequestCoalescer coalescer = null;
+        if (method.getAnnotation(Coalesce.class) != null) {
+            if (method.getAnnotation(GET.class) == null || pipeline) {
+                throw new JavalinControllerException("@Coalesce can only be used on GET controller methods, not " + method);
+            }
+            for (Parameter parameter : methodParameters) {
+                if (parameter.getAnnotation(RequestContext.class) != null) {
+                    throw new JavalinControllerException("@Coalesce can't be used on controller method " + method + " as it takes the request context");
+                }
+            }
+            coalescer = new RequestCoalescer();
+        }
+
+        boolean fileResponse = FileResponse.isFileType(method.getReturnType());
+        if (fileResponse && coalescer != null) {
+            throw new JavalinControllerException("@Coalesce can't be used on controller method " + method + " as it sends a file");
+        }
+
+        if (method.getAnnotation(Batched.class) != null && (pipeline || coalescer != null)) {
+            throw new JavalinControllerException("@Batched can't be used on before/after, Void or @Coalesce controller method " + method);
+        }
+        int boundParameters = 0;
+        for (ParameterPlan parameter : parameters) {
+            if (parameter.binder != null) boundParameters++;
+        }
+        MicroBatcher batcher = MicroBatcher.create(method, boundParameters);
+
+        //noinspection unchecked
+        return new RoutePlan(method, invoker != null ? invoker : RouteInvoker.create(method), parameters, validators.toArray(new Predicate[0]), pipeline, streamingFormat, cache, etag, limits, coalescer, batcher, fileResponse);
+    }
+
+    private static ParameterPlan compileParameter(Parameter parameter,
+                                                  Map<Class<? extends Annotation>, ParameterMapper<?>> parameterMappers,
+                                                  Map<Class<? extends Annotation>, Function<?, Predicate<Object>>> parameterValidators) {
+        Class argClass = parameter.getType();
+        boolean optional = false;
+
+        if (parameter.getType() == Optional.class) {
+            argClass = (Class) ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0];
+            optional = true;
+        }
+
+        argClass = boxed(argClass);
+
+        ParameterBinder binder = null;
+        String description = parameter.getName();
+        List<Predicate<Object>> validators = new ArrayList<>();
+        for (Annotation annotation : parameter.getAnnotations()) {
+            //noinspection unchecked
+            ParameterMapper<Annotation> mapper = (ParameterMapper<Annotation>) parameterMappers.get(annotation.annotationType());
+            if (mapper != null && binder == null) {
+                binder = mapper.binder(annotation, argClass, parameter, optional);
+                description = describe(annotation, parameter);
+            }
+
+            //noinspection unchecked
+            Function<Annotation, Predicate<Object>> validatorFactory = (Function<Annotation, Predicate<Object>>) parameterValidators.get(annotation.annotationType());
+            if (validatorFactory != null) validators.add(validatorFactory.apply(annotation));
+        }
+
+        //noinspection unchecked
+        return new ParameterPlan(parameter.getName(), description, argClass, optional, binder, validators.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Names a parameter by where it's bound from, e.g. {@code @Query(name)}, as parameter names are rarely
+     * compiled in.
+     */
+    private static String describe(Annotation annotation, Parameter parameter) {
+        String description = "@" + annotation.annotationType().getSimpleName();
+        try {
+            Object value = annotation.annotationType().getMethod("value").invoke(annotation);
+            if (value instanceof String && !((String) value).isEmpty()) return description + "(" + value + ")";
+        } catch (ReflectiveOperationException ignored) {
+            //no value to describe it with
+        }
+        return parameter.isNamePresent() ? description + " " + parameter.getName() : description;
+    }
+
+    /**
+     * Reads a class level annotation from the registered controller class, falling back to the class that declares
+     * the method for methods inherited from a base controller.
+     */
+    static <A extends Annotation> A classAnnotation(Class<?> controllerClass, Method method, Class<A> type) {
+        A annotation = controllerClass.getAnnotation(type);
+        return annotation != null ? annotation : method.getDeclaringClass().getAnnotation(type);
+    }
+
+    static Class<?> boxed(Class<?> type) {
+        return primitiveObjectTypes.getOrDefault(type, type);
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    InvocationStrategy getInvocationStrategy() {
+        return invoker.getStrategy();
+    }
+
+    boolean isPipeline() {
+        return pipeline;
+    }
+
+    Streaming.Format getStreamingFormat() {
+        return streamingFormat;
+    }
+
+    /**
+     * The response cache of a {@link Cacheable} route, null for other routes.
+     */
+    ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * The concurrency and rate limits of the route, null if it has none.
+     */
+    RouteLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * The coalescer of a {@link Coalesce} route, null for other routes.
+     */
+    RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * The batcher of a {@link Batched} route, null for other routes.
+     */
+    MicroBatcher getBatcher() {
+        return batcher;
+    }
+
+    /**
+     * Whether the method is declared to return a {@link FileResponse}, {@link java.nio.file.Path} or
+     * {@link java.nio.channels.FileChannel}.
+     */
+    boolean isFileResponse() {
+        return fileResponse;
+    }
+
+    boolean isETag() {
+        return etag;
+    }
+
+    List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    Object[] newArguments() {
+        return new Object[parameters.length];
+    }
+
+    /**
+     * Indexes of every method parameter, in order.
+     */
+    int[] getAllParameters() {
+        return allParameters;
+    }
+
+    /**
+     * Binds and validates the parameters at the given indexes into {@code args}.
+     */
+    void bindArguments(Context ctx, Object[] args, int[] indexes) {
+        for (int i : indexes) {
+            ParameterPlan parameter = parameters[i];
+            try {
+                args[i] = parameter.bind(ctx);
+            } catch (HttpResponseException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JavalinControllerException("Error processing parameter \"" + parameter.name + "\" on controller method " + method, e);
+            }
+        }
+    }
+
+    void validate(Context ctx) {
+        try {
+            for (Predicate<Context> validator : methodValidators) {
+                if (!validator.test(ctx)) {
+                    throw new BadRequestResponse("Validation failed");
+                }
+            }
+        } catch (HttpResponseException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JavalinControllerException("Error validating controller method " + method, e);
+        }
+    }
+
+    Object invoke(Object controller, Object[] args) {
+        try {
+            return invoker.invoke(controller, args);
+        } catch (HttpResponseException | JavalinControllerException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JavalinControllerException(e);
+        }
+    }
+
+    private static final class ParameterPlan {
+
+        private final String name;
+        private final String description;
+        private final Class argClass;
+        private final boolean optional;
+        private final ParameterBinder binder;
+        private final Predicate<Object>[] validators;
+
+        private ParameterPlan(String name, String description, Class argClass, boolean optional, ParameterBinder binder, Predicate<Object>[] validators) {
+            this.name = name;
+            this.description = description;
+            this.argClass = argClass;
+            this.optional = optional;
+            this.binder = binder;
+            this.validators = validators;
+        }
+
+        private Object bind(Context ctx) {
+            if (binder == null) {
+                return optional ? Optional.empty() : null;
+            }
+
+            Object arg = binder.bind(ctx);
+
+            boolean valid = true;
+            try {
+                for (Predicate<Object> validator : validators) {
+                    if (!validator.test(arg)) {
+                        valid = false;
+                        break;
+                    }
+                }
+            } catch (NullPointerException e) {
+                valid = false;
+            }
+
+            if (!valid) {
+                if (optional) return Optional.empty();
+                throw new BadRequestResponse("Validation failed");
+            }
+
+            if (arg == null) {
+                return optional ? Optional.empty() : null;
+            }
+
+            if (!argClass.isAssignableFrom(arg.getClass())) {
+                throw new IllegalStateException("Error assigning argument. Expected type: " + argClass + " Got type: " + arg.getClass());
+            }
+
+            return optional ? Optional.of(arg) : arg;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package me.theminecoder.web.javalin;
+
+import java.util.List;
+
+/**
+ * Where the time went for a single sampled request. Phases that didn't run (a failed bind, a route with no
+ * method validators, etc) are reported as 0.
+ */
+public final class RouteTrace {
+
+    public enum Phase {
+        /**
+         * Mapping, converting and validating parameters.
+         */
+        BIND,
+        /**
+         * Method validators.
+         */
+        VALIDATE,
+        /**
+         * The controller method. For async routes this runs until the returned future completes, including any
+         * time spent waiting for the executor.
+         */
+        INVOKE,
+        /**
+         * Turning the response into JSON or a rendered view. Streamed responses are serialized while they are
+         * written, after the trace has finished.
+         */
+        SERIALIZE
+    }
+
+    private final RegisteredRoute route;
+    private final List<String> parameterNames;
+    private final String requestPath;
+    private final long start;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long last;
+    private long totalNanos;
+    private int status;
+
+    RouteTrace(RegisteredRoute route, List<String> parameterNames, String requestPath, long start) {
+        this.route = route;
+        this.parameterNames = parameterNames;
+        this.requestPath = requestPath;
+        this.start = start;
+        this.last = start;
+    }
+
+    void mark(Phase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - last;
+        last = now;
+    }
+
+    void finish(int status, long now) {
+        this.status = status;
+        this.totalNanos = now - start;
+    }
+
+    public RegisteredRoute getRoute() {
+        return route;
+    }
+
+    /**
+     * Parameters of the controller method in order, described by where they are bound from, e.g. {@code @Query(name)}.
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public String getRequestPath() {
+        return requestPath;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+}
@@ -0,0 +1,12 @@
+package me.theminecoder.web.javalin;
+
+/**
+ * Receives a {@link RouteTrace} for every sampled request once it's finished. Called on whichever thread finished
+ * the request, so implementations should be thread safe and quick.
+ */
+@FunctionalInterface
+public interface RouteTraceListener {
+
+    void onTrace(RouteTrace trace);
+
+}
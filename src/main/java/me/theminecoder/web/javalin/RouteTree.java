@@ -0,0 +1,200 @@
+package me.theminecoder.web.javalin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Radix tree of route paths. Routes share the static text of their paths in compressed edges and path parameters
+ * match one non-empty segment. Static text is tried before a parameter, falling back to the parameter when the
+ * static branch has no route for the rest of the path. Wildcards aren't supported.
+ */
+final class RouteTree<T> {
+
+    private final boolean caseSensitive;
+    private final Node<T> root = new Node<>("");
+    private final Set<String> paths = new HashSet<>();
+    private int maxParameters;
+
+    RouteTree(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    void add(String path, T value) {
+        if (path.contains("*")) {
+            throw new IllegalArgumentException("Route tree can't hold wildcard path \"" + path + "\"");
+        }
+        if (!paths.add(caseSensitive ? path : path.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Route tree already has a route for \"" + path + "\"");
+        }
+
+        List<String> parameterNames = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        Node<T> node = root;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            text.append('/');
+            if (!segment.startsWith(":")) {
+                text.append(caseSensitive ? segment : segment.toLowerCase(Locale.ROOT));
+                continue;
+            }
+
+            node = insert(node, text.toString());
+            text.setLength(0);
+            if (node.parameter == null) node.parameter = new Node<>("");
+            node = node.parameter;
+            parameterNames.add(segment.substring(1));
+        }
+        if (text.length() == 0 && parameterNames.isEmpty()) text.append('/');
+        node = insert(node, text.toString());
+
+        // Same shape as an earlier route with other parameter names, like Javalin the earlier one wins
+        if (node.leaf == null) node.leaf = new Leaf<>(value, parameterNames.toArray(new String[0]));
+        maxParameters = Math.max(maxParameters, parameterNames.size());
+    }
+
+    /**
+     * Returns null when no route matches the path.
+     */
+    Match<T> find(String path) {
+        String[] values = new String[maxParameters];
+        Leaf<T> leaf = find(root, path, 0, values, 0);
+        return leaf != null ? new Match<>(leaf.value, leaf.parameterNames, values) : null;
+    }
+
+    private Leaf<T> find(Node<T> node, String path, int offset, String[] values, int valueCount) {
+        String prefix = node.prefix;
+        if (path.length() - offset < prefix.length()) return null;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = path.charAt(offset + i);
+            if (c != prefix.charAt(i) && (caseSensitive || Character.toLowerCase(c) != prefix.charAt(i))) return null;
+        }
+        offset += prefix.length();
+        if (offset == path.length()) return node.leaf;
+
+        char next = caseSensitive ? path.charAt(offset) : Character.toLowerCase(path.charAt(offset));
+        for (int i = 0; i < node.indices.length; i++) {
+            if (node.indices[i] != next) continue;
+            Leaf<T> leaf = find(node.children[i], path, offset, values, valueCount);
+            if (leaf != null) return leaf;
+            break;
+        }
+
+        if (node.parameter == null) return null;
+        int end = path.indexOf('/', offset);
+        if (end < 0) end = path.length();
+        if (end == offset) return null;
+        values[valueCount] = path.substring(offset, end);
+        return find(node.parameter, path, end, values, valueCount + 1);
+    }
+
+    /**
+     * Walks the static text from the node, splitting edges that only share part of it.
+     */
+    private static <T> Node<T> insert(Node<T> node, String text) {
+        while (!text.isEmpty()) {
+            Node<T> child = null;
+            for (int i = 0; i < node.indices.length; i++) {
+                if (node.indices[i] == text.charAt(0)) child = node.children[i];
+            }
+            if (child == null) {
+                child = new Node<>(text);
+                node.addChild(child);
+                return child;
+            }
+
+            int common = 0;
+            while (common < text.length() && common < child.prefix.length() && text.charAt(common) == child.prefix.charAt(common)) {
+                common++;
+            }
+            if (common < child.prefix.length()) child.split(common);
+            node = child;
+            text = text.substring(common);
+        }
+        return node;
+    }
+
+    static final class Match<T> {
+
+        private final T value;
+        private final String[] parameterNames;
+        private final String[] parameterValues;
+
+        private Match(T value, String[] parameterNames, String[] parameterValues) {
+            this.value = value;
+            this.parameterNames = parameterNames;
+            this.parameterValues = parameterValues;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        int getParameterCount() {
+            return parameterNames.length;
+        }
+
+        String getParameterName(int index) {
+            return parameterNames[index];
+        }
+
+        /**
+         * The raw value from the path, not yet url decoded.
+         */
+        String getParameterValue(int index) {
+            return parameterValues[index];
+        }
+    }
+
+    private static final class Leaf<T> {
+
+        private final T value;
+        private final String[] parameterNames;
+
+        private Leaf(T value, String[] parameterNames) {
+            this.value = value;
+            this.parameterNames = parameterNames;
+        }
+    }
+
+    private static final class Node<T> {
+
+        private String prefix;
+        private char[] indices = new char[0];
+        @SuppressWarnings("unchecked")
+        private Node<T>[] children = new Node[0];
+        private Node<T> parameter;
+        private Leaf<T> leaf;
+
+        private Node(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private void addChild(Node<T> child) {
+            indices = Arrays.copyOf(indices, indices.length + 1);
+            indices[indices.length - 1] = child.prefix.charAt(0);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+
+        private void split(int at) {
+            Node<T> rest = new Node<>(prefix.substring(at));
+            rest.indices = indices;
+            rest.children = children;
+            rest.parameter = parameter;
+            rest.leaf = leaf;
+
+            prefix = prefix.substring(0, at);
+            indices = new char[0];
+            //noinspection unchecked
+            children = new Node[0];
+            parameter = null;
+            leaf = null;
+            addChild(rest);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package me.theminecoder.web.javalin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs a warning with the phase breakdown of every traced request that takes at least the given threshold.
+ */
+public class SlowRequestLogger implements RouteTraceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowRequestLogger.class);
+
+    private final long thresholdNanos;
+
+    public SlowRequestLogger(long threshold, TimeUnit unit) {
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    @Override
+    public void onTrace(RouteTrace trace) {
+        if (trace.getTotalNanos() < thresholdNanos || !logger.isWarnEnabled()) return;
+
+        RegisteredRoute route = trace.getRoute();
+        logger.warn("Slow request {} {} ({} {}) took {}ms with status {}: bind {}ms, validate {}ms, invoke {}ms, serialize {}ms, parameters {}",
+                route.getRouteMethodType().getSimpleName(), trace.getRequestPath(), route.getPath(),
+                route.getMethod().getDeclaringClass().getSimpleName() + "#" + route.getMethod().getName(),
+                millis(trace.getTotalNanos()), trace.getStatus(),
+                millis(trace.getPhaseNanos(RouteTrace.Phase.BIND)), millis(trace.getPhaseNanos(RouteTrace.Phase.VALIDATE)),
+                millis(trace.getPhaseNanos(RouteTrace.Phase.INVOKE)), millis(trace.getPhaseNanos(RouteTrace.Phase.SERIALIZE)),
+                trace.getParameterNames());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000D);
+    }
+
+}
@@ -0,0 +1,954 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.core.JavalinServlet;
+
+import javax.servlet.*;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+import java.io.*;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One sub-request of a batch, run through the Javalin servlet on top of the batch request. The sub-request keeps
+ * the batch request's client address and server, but only has the headers it declares itself and a few that
+ * describe the client ({@link #INHERITED_HEADERS}). Credentials, cookies and the session of the batch request are
+ * never passed on, a sub-request that needs them has to declare them. Its response is buffered so it can be
+ * embedded in the batch response.
+ */
+final class SubExchange {
+
+    static final Set<String> INHERITED_HEADERS = new HashSet<>(Arrays.asList(
+            "accept", "accept-language", "user-agent", "x-forwarded-for", "x-forwarded-host", "x-forwarded-proto"));
+
+    private final Request request;
+    private final Response response;
+    private final CompletableFuture<SubExchange> done = new CompletableFuture<>();
+    private JavalinServlet servlet;
+    private boolean asyncStarted;
+
+    SubExchange(HttpServletRequest batchRequest, HttpServletResponse batchResponse, String method, String path,
+                String queryString, Map<String, String> headers, byte[] body) {
+        this.request = new Request(batchRequest, method, path, queryString, headers, body);
+        this.response = new Response(batchResponse);
+    }
+
+    HttpServletRequest getRequest() {
+        return request;
+    }
+
+    HttpServletResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Runs the sub-request, the returned future completes once its response has been written, which is after this
+     * returns for async routes.
+     */
+    CompletableFuture<SubExchange> run(JavalinServlet servlet) {
+        this.servlet = servlet;
+        service();
+        return done;
+    }
+
+    private void service() {
+        asyncStarted = false;
+        request.asyncContext = null;
+        try {
+            servlet.service(request, response);
+        } catch (Throwable e) {
+            done.completeExceptionally(e);
+            return;
+        }
+        if (!asyncStarted) done.complete(this);
+    }
+
+    int getStatus() {
+        return response.status;
+    }
+
+    Map<String, String> getHeaders() {
+        return response.headers;
+    }
+
+    String getContentType() {
+        return response.headers.get("Content-Type");
+    }
+
+    byte[] getBody() {
+        return response.body.toByteArray();
+    }
+
+    Charset getCharset() {
+        return Charset.forName(response.getCharacterEncoding());
+    }
+
+    private static Cookie[] parseCookies(String header) {
+        if (header == null) return null;
+        List<Cookie> cookies = new ArrayList<>();
+        for (String pair : header.split(";")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0) continue;
+            try {
+                cookies.add(new Cookie(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim()));
+            } catch (IllegalArgumentException ignored) {
+                //not a valid cookie name
+            }
+        }
+        return cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+    }
+
+    /**
+     * Everything the sub-request reads from the batch request is copied when it's created, as sub-requests run on
+     * other threads and may outlive the batch request. Cookies come from the sub-request's own Cookie header,
+     * there is no session or authenticated user and parts aren't supported.
+     */
+    private final class Request extends HttpServletRequestWrapper {
+
+        private String method;
+        private String path;
+        private String queryString;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private final byte[] body;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private String characterEncoding;
+        private Map<String, String[]> parameters;
+        private AsyncContext asyncContext;
+        private DispatcherType dispatcherType = DispatcherType.REQUEST;
+
+        private final String contextPath;
+        private final String scheme;
+        private final String serverName;
+        private final int serverPort;
+        private final boolean secure;
+        private final String protocol;
+        private final String remoteAddr;
+        private final String remoteHost;
+        private final int remotePort;
+        private final String localAddr;
+        private final String localName;
+        private final int localPort;
+        private final List<Locale> locales;
+        private final Cookie[] cookies;
+        private final ServletContext servletContext;
+
+        private Request(HttpServletRequest batchRequest, String method, String path, String queryString, Map<String, String> headers, byte[] body) {
+            super(batchRequest);
+            this.method = method;
+            this.path = path;
+            this.queryString = queryString;
+            this.body = body;
+
+            for (String name : INHERITED_HEADERS) {
+                String value = batchRequest.getHeader(name);
+                if (value != null) this.headers.put(name, value);
+            }
+            headers.forEach((name, value) -> this.headers.put(name.toLowerCase(Locale.ROOT), value));
+            if (body.length > 0) this.headers.put("content-length", Integer.toString(body.length));
+
+            this.contextPath = batchRequest.getContextPath() != null ? batchRequest.getContextPath() : "";
+            this.scheme = batchRequest.getScheme();
+            this.serverName = batchRequest.getServerName();
+            this.serverPort = batchRequest.getServerPort();
+            this.secure = batchRequest.isSecure();
+            this.protocol = batchRequest.getProtocol();
+            this.remoteAddr = batchRequest.getRemoteAddr();
+            this.remoteHost = batchRequest.getRemoteHost();
+            this.remotePort = batchRequest.getRemotePort();
+            this.localAddr = batchRequest.getLocalAddr();
+            this.localName = batchRequest.getLocalName();
+            this.localPort = batchRequest.getLocalPort();
+            this.locales = Collections.list(batchRequest.getLocales());
+            this.cookies = parseCookies(this.headers.get("cookie"));
+            this.servletContext = batchRequest.getServletContext();
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return contextPath + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            return new StringBuffer(scheme).append("://").append(serverName).append(':').append(serverPort).append(getRequestURI());
+        }
+
+        @Override
+        public String getContextPath() {
+            return contextPath;
+        }
+
+        @Override
+        public String getServletPath() {
+            return "";
+        }
+
+        @Override
+        public String getPathInfo() {
+            return path;
+        }
+
+        @Override
+        public String getPathTranslated() {
+            return null;
+        }
+
+        @Override
+        public String getQueryString() {
+            return queryString;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            String value = getHeader(name);
+            return Collections.enumeration(value != null ? Collections.singletonList(value) : Collections.emptyList());
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = getHeader(name);
+            return value != null ? Integer.parseInt(value) : -1;
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            String value = getHeader(name);
+            return value != null ? ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() : -1;
+        }
+
+        @Override
+        public String getContentType() {
+            return getHeader("content-type");
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            if (characterEncoding != null) return characterEncoding;
+            String contentType = getContentType();
+            return contentType != null ? charset(contentType) : null;
+        }
+
+        @Override
+        public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+            if (!Charset.isSupported(env)) throw new UnsupportedEncodingException(env);
+            characterEncoding = env;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already here
+                    try {
+                        if (!isFinished()) readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String charset = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset != null ? charset : "UTF-8"));
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = getParameterMap().get(name);
+            return values != null ? values[0] : null;
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(getParameterMap().keySet());
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            String[] values = getParameterMap().get(name);
+            return values != null ? values.clone() : null;
+        }
+
+        /**
+         * The query string parameters followed by those of a form body, like a servlet container would.
+         */
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            if (parameters == null) {
+                Map<String, List<String>> values = new LinkedHashMap<>();
+                if (queryString != null) parseParameters(queryString, "UTF-8", values);
+                String contentType = getContentType();
+                if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("application/x-www-form-urlencoded")) {
+                    String charset = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+                    parseParameters(new String(body, Charset.forName(charset)), charset, values);
+                }
+                Map<String, String[]> parameters = new LinkedHashMap<>();
+                values.forEach((name, list) -> parameters.put(name, list.toArray(new String[0])));
+                this.parameters = Collections.unmodifiableMap(parameters);
+            }
+            return parameters;
+        }
+
+        @Override
+        public Collection<Part> getParts() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Part getPart(String name) {
+            return null;
+        }
+
+        @Override
+        public String getScheme() {
+            return scheme;
+        }
+
+        @Override
+        public String getServerName() {
+            return serverName;
+        }
+
+        @Override
+        public int getServerPort() {
+            return serverPort;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        public String getRemoteAddr() {
+            return remoteAddr;
+        }
+
+        @Override
+        public String getRemoteHost() {
+            return remoteHost;
+        }
+
+        @Override
+        public int getRemotePort() {
+            return remotePort;
+        }
+
+        @Override
+        public String getLocalAddr() {
+            return localAddr;
+        }
+
+        @Override
+        public String getLocalName() {
+            return localName;
+        }
+
+        @Override
+        public int getLocalPort() {
+            return localPort;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+        }
+
+        @Override
+        public Enumeration<Locale> getLocales() {
+            return Collections.enumeration(locales);
+        }
+
+        @Override
+        public Cookie[] getCookies() {
+            return cookies != null ? cookies.clone() : null;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return null;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return null;
+        }
+
+        @Override
+        public String getAuthType() {
+            return null;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return false;
+        }
+
+        @Override
+        public boolean authenticate(HttpServletResponse response) throws ServletException {
+            throw new ServletException("Batched requests can't authenticate");
+        }
+
+        @Override
+        public void login(String username, String password) throws ServletException {
+            throw new ServletException("Batched requests can't log in");
+        }
+
+        @Override
+        public void logout() throws ServletException {
+            throw new ServletException("Batched requests can't log out");
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        /**
+         * Batched requests have no session and can't start one, as the batch response may already be committed.
+         */
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (create) throw new IllegalStateException("Batched requests can't create a session");
+            return null;
+        }
+
+        @Override
+        public String changeSessionId() {
+            throw new IllegalStateException("Batched requests can't change the session id");
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean isRequestedSessionIdFromUrl() {
+            return false;
+        }
+
+        @Override
+        public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) throws ServletException {
+            throw new ServletException("Batched requests can't be upgraded");
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public RequestDispatcher getRequestDispatcher(String path) {
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public String getRealPath(String path) {
+            return servletContext.getRealPath(path);
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return dispatcherType;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public void setAttribute(String name, Object o) {
+            attributes.put(name, o);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return asyncContext != null;
+        }
+
+        @Override
+        public AsyncContext getAsyncContext() {
+            if (asyncContext == null) throw new IllegalStateException("Async not started");
+            return asyncContext;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            return startAsync(this, response);
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+            asyncStarted = true;
+            List<AsyncListener> listeners = new ArrayList<>(0);
+            asyncContext = new AsyncContext() {
+                @Override
+                public ServletRequest getRequest() {
+                    return servletRequest;
+                }
+
+                @Override
+                public ServletResponse getResponse() {
+                    return servletResponse;
+                }
+
+                @Override
+                public boolean hasOriginalRequestAndResponse() {
+                    return servletRequest == request && servletResponse == response;
+                }
+
+                @Override
+                public void dispatch() {
+                    dispatch(path + (queryString != null ? "?" + queryString : ""));
+                }
+
+                @Override
+                public void dispatch(String path) {
+                    int queryStart = path.indexOf('?');
+                    Request.this.path = queryStart >= 0 ? path.substring(0, queryStart) : path;
+                    Request.this.queryString = queryStart >= 0 ? path.substring(queryStart + 1) : null;
+                    parameters = null;
+                    dispatcherType = DispatcherType.ASYNC;
+                    service();
+                }
+
+                /**
+                 * Sub-requests only run through the Javalin servlet, so this dispatches within it whatever the
+                 * context.
+                 */
+                @Override
+                public void dispatch(ServletContext context, String path) {
+                    dispatch(path);
+                }
+
+                @Override
+                public void complete() {
+                    AsyncEvent event = new AsyncEvent(this, servletRequest, servletResponse);
+                    for (AsyncListener listener : listeners) {
+                        try {
+                            listener.onComplete(event);
+                        } catch (IOException ignored) {
+                            //the response is already buffered
+                        }
+                    }
+                    done.complete(SubExchange.this);
+                }
+
+                @Override
+                public void start(Runnable run) {
+                    run.run();
+                }
+
+                @Override
+                public void addListener(AsyncListener listener) {
+                    listeners.add(listener);
+                }
+
+                @Override
+                public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+                    listeners.add(listener);
+                }
+
+                @Override
+                public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+                    try {
+                        return clazz.getDeclaredConstructor().newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new ServletException("Unable to create listener " + clazz.getName(), e);
+                    }
+                }
+
+                @Override
+                public void setTimeout(long timeout) {
+                }
+
+                @Override
+                public long getTimeout() {
+                    return 0;
+                }
+            };
+            return asyncContext;
+        }
+    }
+
+    /**
+     * Buffers the sub-request's response, nothing is passed on to the batch response.
+     */
+    private static final class Response extends HttpServletResponseWrapper {
+
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = 200;
+        private String characterEncoding = StandardCharsets.UTF_8.name();
+        private Locale locale = Locale.getDefault();
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private Response(HttpServletResponse batchResponse) {
+            super(batchResponse);
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            status = sc;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int sc, String sm) {
+            status = sc;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void sendError(int sc) {
+            status = sc;
+        }
+
+        @Override
+        public void sendError(int sc, String msg) {
+            status = sc;
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+            status = 302;
+            setHeader("Location", location);
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            StringBuilder header = new StringBuilder(cookie.getName()).append('=').append(cookie.getValue() != null ? cookie.getValue() : "");
+            if (cookie.getPath() != null) header.append("; Path=").append(cookie.getPath());
+            if (cookie.getDomain() != null) header.append("; Domain=").append(cookie.getDomain());
+            if (cookie.getMaxAge() >= 0) header.append("; Max-Age=").append(cookie.getMaxAge());
+            if (cookie.getSecure()) header.append("; Secure");
+            if (cookie.isHttpOnly()) header.append("; HttpOnly");
+            addHeader("Set-Cookie", header.toString());
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+
+        @Override
+        public String encodeRedirectURL(String url) {
+            return url;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public String encodeUrl(String url) {
+            return url;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public String encodeRedirectUrl(String url) {
+            return url;
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+            this.locale = locale;
+            if (locale != null) setHeader("Content-Language", locale.toLanguageTag());
+        }
+
+        @Override
+        public Locale getLocale() {
+            return locale;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (name.equalsIgnoreCase("Content-Type")) {
+                setContentType(value);
+                return;
+            }
+            headers.keySet().removeIf(name::equalsIgnoreCase);
+            if (value != null) headers.put(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            String existing = getHeader(name);
+            setHeader(name, existing != null ? existing + ", " + value : value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            setHeader(name, ETags.formatDate(Instant.ofEpochMilli(date)));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            addHeader(name, ETags.formatDate(Instant.ofEpochMilli(date)));
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return getHeader(name) != null;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            String value = getHeader(name);
+            return value != null ? Collections.singletonList(value) : Collections.emptyList();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return headers.keySet();
+        }
+
+        @Override
+        public void setContentType(String type) {
+            headers.keySet().removeIf("Content-Type"::equalsIgnoreCase);
+            if (type == null) return;
+            String charset = charset(type);
+            if (charset != null) characterEncoding = charset;
+            headers.put("Content-Type", type);
+        }
+
+        @Override
+        public String getContentType() {
+            return headers.get("Content-Type");
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            characterEncoding = charset;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        // Writes go to memory, so it can always write
+                        try {
+                            writeListener.onWritePossible();
+                        } catch (IOException e) {
+                            writeListener.onError(e);
+                        }
+                    }
+
+                    @Override
+                    public void write(int b) {
+                        body.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        body.write(b, off, len);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(characterEncoding)), true);
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            if (writer != null) writer.flush();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            headers.clear();
+            status = 200;
+        }
+
+        @Override
+        public void resetBuffer() {
+            body.reset();
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+        }
+
+        @Override
+        public int getBufferSize() {
+            return body.size();
+        }
+    }
+
+    private static void parseParameters(String encoded, String charset, Map<String, List<String>> parameters) {
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            try {
+                String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, charset);
+                String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), charset) : "";
+                parameters.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+            } catch (UnsupportedEncodingException | IllegalArgumentException ignored) {
+                //skipped like a malformed parameter would be by the container
+            }
+        }
+    }
+
+    private static String charset(String contentType) {
+        for (String part : contentType.split(";")) {
+            part = part.trim();
+            if (part.regionMatches(true, 0, "charset=", 0, 8)) return part.substring(8).replace("\"", "").trim();
+        }
+        return null;
+    }
+
+}
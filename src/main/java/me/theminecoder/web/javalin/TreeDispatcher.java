@@ -0,0 +1,149 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import io.javalin.Handler;
+import io.javalin.Javalin;
+import io.javalin.NotFoundResponse;
+import io.javalin.core.util.ContextUtil;
+import me.theminecoder.web.javalin.annotations.Controller;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single handler of one HTTP method of a {@link Controller#treeDispatch()} controller. Finds the route in a
+ * {@link RouteTree} and fills in the path parameters Javalin would have extracted itself.
+ */
+final class TreeDispatcher implements Handler {
+
+    // Javalin sets these itself when it matches a route, they're synthetic so only reachable by reflection. They are
+    // internals of Javalin 2.5.x and null when missing, checkSupported() reports that at registration
+    private static final MethodHandle setPathParamMap = contextSetter("setPathParamMap$javalin", Map.class);
+    private static final MethodHandle setMatchedPath = contextSetter("setMatchedPath$javalin", String.class);
+    private static final String[] FLAGS = {"caseSensitiveUrls", "ignoreTrailingSlashes"};
+
+    private final RouteTree<Route> tree;
+    private final boolean ignoreTrailingSlashes;
+    private final List<String> paths = new ArrayList<>();
+
+    TreeDispatcher(boolean caseSensitive, boolean ignoreTrailingSlashes) {
+        this.tree = new RouteTree<>(caseSensitive);
+        this.ignoreTrailingSlashes = ignoreTrailingSlashes;
+    }
+
+    static TreeDispatcher create(Javalin app) {
+        return new TreeDispatcher(flag(app, FLAGS[0]), flag(app, FLAGS[1]));
+    }
+
+    /**
+     * Fails when the Javalin on the classpath doesn't have the internals the dispatcher relies on. Only Javalin 2.5.x
+     * is known to have them.
+     */
+    static void checkSupported() {
+        List<String> missing = new ArrayList<>();
+        if (setPathParamMap == null) missing.add("Context.setPathParamMap$javalin(Map)");
+        if (setMatchedPath == null) missing.add("Context.setMatchedPath$javalin(String)");
+        for (String flag : FLAGS) {
+            try {
+                Javalin.class.getDeclaredField(flag);
+            } catch (NoSuchFieldException e) {
+                missing.add("Javalin." + flag);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new JavalinControllerException("@Controller(treeDispatch = true) only supports Javalin 2.5.x, the Javalin on the classpath is missing "
+                    + String.join(", ", missing) + ". Turn treeDispatch off to use this version.");
+        }
+    }
+
+    private static MethodHandle contextSetter(String name, Class<?> type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(Context.class.getMethod(name, type));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static boolean flag(Javalin app, String name) {
+        try {
+            Field field = Javalin.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.getBoolean(app);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new JavalinControllerException("Unable to read Javalin's " + name + " setting for @Controller(treeDispatch = true)", e);
+        }
+    }
+
+    void add(String path, Handler handler) {
+        tree.add(path, new Route(path, handler));
+        paths.add(path);
+    }
+
+    /**
+     * The paths to add the dispatcher to Javalin with: a wildcard under the leading static segments all routes
+     * share, and the prefix itself when it's a route too.
+     */
+    List<String> getMountPaths() {
+        String[] prefix = null;
+        int prefixLength = 0;
+        for (String path : paths) {
+            String[] segments = path.replaceAll("^/+", "").split("/");
+            if (prefix == null) {
+                prefix = segments;
+                prefixLength = segments.length;
+            }
+            int shared = 0;
+            while (shared < prefixLength && shared < segments.length && segments[shared].equals(prefix[shared]) && !segments[shared].startsWith(":")) {
+                shared++;
+            }
+            prefixLength = shared;
+        }
+        if (prefix == null || prefixLength == 0 || prefix[0].isEmpty()) return Collections.singletonList("/*");
+
+        String mount = "/" + String.join("/", Arrays.copyOf(prefix, prefixLength));
+        List<String> mountPaths = new ArrayList<>(2);
+        mountPaths.add(mount + "/*");
+        if (paths.contains(mount)) mountPaths.add(mount);
+        return mountPaths;
+    }
+
+    @Override
+    public void handle(Context ctx) throws Exception {
+        String path = PathPatterns.requestPath(ctx);
+        if (ignoreTrailingSlashes && path.length() > 1 && path.endsWith("/")) path = path.substring(0, path.length() - 1);
+
+        RouteTree.Match<Route> match = tree.find(path);
+        if (match == null) throw new NotFoundResponse();
+
+        Map<String, String> pathParams = new HashMap<>(match.getParameterCount() * 2);
+        for (int i = 0; i < match.getParameterCount(); i++) {
+            pathParams.put(match.getParameterName(i), ContextUtil.INSTANCE.urlDecode(match.getParameterValue(i)));
+        }
+        try {
+            setPathParamMap.invokeExact(ctx, pathParams);
+            setMatchedPath.invokeExact(ctx, match.getValue().path);
+        } catch (Throwable e) {
+            throw new JavalinControllerException(e);
+        }
+        match.getValue().handler.handle(ctx);
+    }
+
+    private static final class Route {
+
+        private final String path;
+        private final Handler handler;
+
+        private Route(String path, Handler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+    }
+
+}
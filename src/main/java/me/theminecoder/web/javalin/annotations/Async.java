@@ -0,0 +1,21 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the route on an executor registered with {@code ControllerRegistry.registerExecutor} instead of the Jetty
+ * request thread. Parameters are still bound and validated on the request thread. When placed on a controller it
+ * applies to all of its routes, but never to its before/after methods.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Async {
+
+    public static final String DEFAULT_EXECUTOR = "";
+
+    String value() default DEFAULT_EXECUTOR;
+
+}
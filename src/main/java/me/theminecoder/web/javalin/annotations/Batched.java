@@ -0,0 +1,34 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the keys of requests to a route taking a single bound parameter and loads them together through a
+ * batch method on the same controller, e.g. {@code public List<Item> loadMany(List<String> ids)}. The batch method
+ * has to return one result per key, in the order of the keys. The annotated method itself is never called, it
+ * only declares the route and how its key is bound.
+ * <p>
+ * A batch is loaded once it holds {@link #maxSize()} distinct keys or {@link #maxDelay()} after its first key was
+ * added, on the route's {@code @Async} executor or the common pool. As one batch serves many requests, the
+ * controller has to be a {@link Controller.Scope#SINGLETON}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batched {
+
+    /**
+     * Name of the public batch method on the controller, taking a {@link java.util.List} of keys.
+     */
+    String value();
+
+    int maxSize() default 100;
+
+    long maxDelay() default 5;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+}
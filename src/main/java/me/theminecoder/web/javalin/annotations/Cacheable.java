@@ -0,0 +1,31 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the serialized response of a route, keyed on the values of its {@code @Query}, {@code @Path} and
+ * {@code @Form} parameters after they are bound. Method validators and the key parameters' validators run before
+ * the lookup, the other parameters are only bound and validated when the method is called. Only successful responses that serialize to a string (JSON, views, strings) are cached,
+ * headers set by the method are not.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+    long ttl() default 60;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    int maxEntries() default 1000;
+
+    /**
+     * Names of the parameters, as given to their {@code @Query}/{@code @Path}/{@code @Form} annotation, that make
+     * up the key. Defaults to all of them, in which case every bound parameter has to be one of those.
+     */
+    String[] key() default {};
+
+}
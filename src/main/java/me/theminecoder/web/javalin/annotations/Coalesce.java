@@ -0,0 +1,17 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent GET requests with equal bound arguments share a single call of the route. The first request
+ * calls the method and serializes the response, the rest wait for it without holding their thread and are sent
+ * the same body. Arguments are compared with {@code equals}, so types without it never coalesce. Streamed
+ * responses are buffered so they can be shared, and routes taking {@code @RequestContext} can't coalesce.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesce {
+}
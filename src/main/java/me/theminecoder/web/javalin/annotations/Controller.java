@@ -9,6 +9,45 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Controller {
 
+    public static enum Scope {
+        /**
+         * One instance shared by every request. Controllers registered as an object are always singletons.
+         */
+        SINGLETON,
+        /**
+         * One instance per request thread, reused across requests on that thread. Can't be used by controllers
+         * with {@code @Async}, {@code @Batched}, {@code @Coalesce} or CompletionStage routes, as those keep using
+         * the instance after the thread has moved on to its next request.
+         */
+        POOLED,
+        /**
+         * A new instance for every request, shared by the before, route and after methods of that request. Can't be
+         * used by controllers with {@code @Batched} routes, as a batch loads the keys of many requests at once.
+         */
+        PER_REQUEST
+    }
+
     String value() default "";
 
+    Scope scope() default Scope.PER_REQUEST;
+
+    /**
+     * Runs the controller's before and after methods, inherited ones included, inside the handler of each of its
+     * routes they match instead of as Javalin filters. The whole chain shares one controller instance and Javalin
+     * no longer has to match the filters against every request. They then only run for the controller's own
+     * routes, not for other paths under it, and after methods run before exceptions thrown by the route are
+     * mapped to a response.
+     */
+    boolean fuseFilters() default false;
+
+    /**
+     * Registers one wildcard handler per HTTP method under the common path of the controller's routes and finds
+     * the route in a radix tree, instead of adding every route to Javalin's matcher. Meant for controllers with a
+     * large number of routes. Every path under the prefix then belongs to the controller for those methods, so
+     * other handlers added after it there are never reached, and no two controllers can share the same prefix.
+     * Routes with wildcards are still added to Javalin. Relies on internals of Javalin 2.5.x, registering fails on
+     * versions that don't have them.
+     */
+    boolean treeDispatch() default false;
+
 }
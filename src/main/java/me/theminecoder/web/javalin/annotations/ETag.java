@@ -0,0 +1,17 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets an {@code ETag} hashed from the body of successful JSON, view and string responses to GET/HEAD requests,
+ * answering a matching {@code If-None-Match} with 304 and no body. The response is still built and serialized, to
+ * skip that return a {@code ConditionalResponse} instead. When placed on a controller it applies to all of its
+ * routes, but never to its before/after methods.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ETag {
+}
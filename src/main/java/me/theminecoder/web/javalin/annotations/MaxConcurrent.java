@@ -0,0 +1,18 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caps how many requests a route handles at once, async routes count until their result completes. Requests over
+ * the limit are answered with 503 straight away, before any parameters are bound.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxConcurrent {
+
+    int value();
+
+}
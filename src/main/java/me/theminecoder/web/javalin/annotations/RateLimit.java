@@ -0,0 +1,43 @@
+package me.theminecoder.web.javalin.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limit for a route, allowing bursts of up to {@link #permits()} requests. Requests over the
+ * limit are answered with 429 and a {@code Retry-After} header straight away, before any parameters are bound.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    public static enum Key {
+        /**
+         * One bucket shared by every request to the route.
+         */
+        ROUTE,
+        /**
+         * A bucket per client IP, as reported by the servlet request.
+         */
+        CLIENT_IP,
+        /**
+         * A bucket per raw value of the {@code @Query}/{@code @Path}/{@code @Form} parameter named by
+         * {@link #parameter()}.
+         */
+        PARAMETER
+    }
+
+    long permits();
+
+    long per() default 1;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    Key key() default Key.ROUTE;
+
+    String parameter() default "";
+
+}
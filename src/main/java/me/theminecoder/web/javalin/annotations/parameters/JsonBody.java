@@ -8,4 +8,19 @@ import java.lang.annotation.Target;
 @Target(ElementType.PARAMETER)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface JsonBody {
+
+    public static final long NO_LIMIT = -1;
+
+    /**
+     * Deserialize straight from the request input stream instead of reading the body into a String first.
+     * Needs jackson-databind, and also allows {@link java.util.Iterator} and {@link java.util.stream.Stream}
+     * parameters which read a JSON array one element at a time.
+     */
+    boolean streaming() default false;
+
+    /**
+     * Max body size in bytes when streaming, larger bodies are rejected with a 413.
+     */
+    long maxSize() default NO_LIMIT;
+
 }
@@ -0,0 +1,225 @@
+package me.theminecoder.web.javalin.processor;
+
+import me.theminecoder.web.javalin.GeneratedController;
+import me.theminecoder.web.javalin.annotations.Controller;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@link GeneratedController} for every {@code @Controller} so routes can be registered without scanning
+ * the controller and invoked without reflection. Registering still loads and constructs the generated class
+ * reflectively, looks up each route's {@link java.lang.reflect.Method} and compiles its parameter binding from the
+ * method's annotations the same way scanned routes are, only the per request call is generated. Not registered as
+ * a service, enable it explicitly with {@code -processor me.theminecoder.web.javalin.processor.ControllerProcessor}.
+ */
+@SupportedAnnotationTypes("me.theminecoder.web.javalin.annotations.Controller")
+public class ControllerProcessor extends AbstractProcessor {
+
+    public static final String INDEX_FILE = GeneratedController.INDEX_FILE;
+
+    private static final String METHODS_PACKAGE = "me.theminecoder.web.javalin.annotations.methods.";
+    private static final List<String> BEFORE_TYPES = Collections.singletonList("Before");
+    private static final List<String> ROUTE_TYPES = Arrays.asList("GET", "POST", "PATCH", "PUT", "DELETE", "HEAD");
+    private static final List<String> AFTER_TYPES = Collections.singletonList("After");
+
+    private final Map<String, String> index = new TreeMap<>();
+    private final Set<String> skipped = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Controller.class))) {
+            if (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.PUBLIC)
+                    || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC))
+                    || (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Skipping non public controller, it won't be found by "
+                        + "registerControllers and has to be registered explicitly, where it will be called reflectively", type);
+                skipped.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+                continue;
+            }
+
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error generating routes: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String controllerPath = normalise(type.getAnnotation(Controller.class).value());
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String generatedSimpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + GeneratedController.CLASS_SUFFIX;
+        String controllerName = type.getQualifiedName().toString();
+
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getModifiers().contains(Modifier.PUBLIC)) methods.add(method);
+        }
+
+        Map<ExecutableElement, AnnotationMirror> routeAnnotations = new LinkedHashMap<>();
+        boolean failed = false;
+        for (ExecutableElement method : methods) {
+            AnnotationMirror routeAnnotation = null;
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                if (!routeType(annotation).startsWith(METHODS_PACKAGE)) continue;
+                if (routeAnnotation != null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Method must have only 1 controller method annotation", method);
+                    failed = true;
+                    break;
+                }
+                routeAnnotation = annotation;
+            }
+            if (routeAnnotation != null) routeAnnotations.put(method, routeAnnotation);
+        }
+
+        if (failed) return;
+
+        StringBuilder routes = new StringBuilder();
+        for (List<String> group : Arrays.asList(BEFORE_TYPES, ROUTE_TYPES, AFTER_TYPES)) {
+            for (Map.Entry<ExecutableElement, AnnotationMirror> route : routeAnnotations.entrySet()) {
+                if (!group.contains(routeType(route.getValue()).substring(METHODS_PACKAGE.length()))) continue;
+                appendRoute(routes, controllerName, controllerPath, route.getKey(), route.getValue());
+            }
+        }
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(binaryName + GeneratedController.CLASS_SUFFIX, type);
+        try (Writer writer = file.openWriter()) {
+            if (!packageName.isEmpty()) writer.write("package " + packageName + ";\n\n");
+            writer.write("// Generated by " + ControllerProcessor.class.getName() + ", do not edit\n");
+            writer.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            writer.write("public final class " + generatedSimpleName + " implements " + GeneratedController.class.getName() + " {\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public java.util.List<me.theminecoder.web.javalin.GeneratedRoute> routes() {\n");
+            writer.write("        java.util.List<me.theminecoder.web.javalin.GeneratedRoute> routes = new java.util.ArrayList<>();\n");
+            writer.write(routes.toString());
+            writer.write("        return routes;\n");
+            writer.write("    }\n\n");
+            writer.write("}\n");
+        }
+
+        index.put(binaryName, binaryName + GeneratedController.CLASS_SUFFIX);
+    }
+
+    private void appendRoute(StringBuilder out, String controllerName, String controllerPath, ExecutableElement method, AnnotationMirror routeAnnotation) {
+        String methodPath = "";
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : processingEnv.getElementUtils().getElementValuesWithDefaults(routeAnnotation).entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals("value")) methodPath = (String) value.getValue().getValue();
+        }
+
+        String routeString = "/" + controllerPath;
+        methodPath = normalise(methodPath);
+        if (!routeString.endsWith("/") && methodPath.length() >= 1) methodPath = "/" + methodPath;
+        routeString += methodPath;
+
+        StringBuilder parameterTypes = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = processingEnv.getTypeUtils().erasure(parameters.get(i).asType());
+            if (i > 0) {
+                parameterTypes.append(", ");
+                arguments.append(", ");
+            }
+            parameterTypes.append(parameterType).append(".class");
+
+            TypeMirror castType = parameterType.getKind().isPrimitive()
+                    ? processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) parameterType).asType()
+                    : parameterType;
+            arguments.append("(").append(castType).append(") args[").append(i).append("]");
+        }
+
+        String target = method.getModifiers().contains(Modifier.STATIC) ? controllerName : "((" + controllerName + ") controller)";
+        String call = target + "." + method.getSimpleName() + "(" + arguments + ")";
+        String body = method.getReturnType().getKind() == TypeKind.VOID ? "{ " + call + "; return null; }" : call;
+
+        String routeType = routeType(routeAnnotation);
+        out.append("        routes.add(me.theminecoder.web.javalin.GeneratedRoute.of(")
+                .append(routeType).append(".class, ")
+                .append(processingEnv.getElementUtils().getConstantExpression(routeString)).append(", ")
+                .append(controllerName).append(".class, ")
+                .append(processingEnv.getElementUtils().getConstantExpression(method.getSimpleName().toString())).append(", ")
+                .append("new Class<?>[]{").append(parameterTypes).append("}, ")
+                .append("(controller, args) -> ").append(body).append("));\n");
+    }
+
+    private void writeIndex() {
+        if (!readIndex() && index.isEmpty()) return;
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (Map.Entry<String, String> entry : index.entrySet()) {
+                    writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error writing controller index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps the controllers of an earlier index in the output that weren't compiled this time, so an incremental
+     * compile doesn't drop them. Controllers that were removed, lost their annotation or were skipped are left out.
+     * Returns whether there was an earlier index.
+     */
+    private boolean readIndex() {
+        List<String> lines = new ArrayList<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+            try (BufferedReader reader = new BufferedReader(file.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) lines.add(line.trim());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return false; //no earlier index
+        }
+
+        for (String line : lines) {
+            String[] entry = line.split(" ");
+            if (entry.length != 2 || index.containsKey(entry[0]) || skipped.contains(entry[0])) continue;
+            TypeElement type = processingEnv.getElementUtils().getTypeElement(entry[0].replace('$', '.'));
+            if (type != null && type.getAnnotation(Controller.class) != null) index.put(entry[0], entry[1]);
+        }
+        return true;
+    }
+
+    private static String routeType(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * Same trimming {@code ControllerRegistry} does to controller and method paths at runtime.
+     */
+    private static String normalise(String path) {
+        path = path.trim();
+        if (path.startsWith("/")) path = path.substring(1);
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        return path;
+    }
+
+}
@@ -0,0 +1,155 @@
+package me.theminecoder.web.javalin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.BadRequestResponse;
+import io.javalin.Context;
+import io.javalin.HttpResponseException;
+import io.javalin.Javalin;
+import io.javalin.core.HandlerType;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import me.theminecoder.web.javalin.annotations.parameters.RequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchEndpointTest {
+
+    @Controller(value = "batch", scope = Controller.Scope.SINGLETON)
+    public static class BatchedRoutes {
+
+        @GET("slow/:millis")
+        public Map<String, Object> slow(@Path("millis") int millis) throws InterruptedException {
+            Thread.sleep(millis);
+            Map<String, Object> result = new HashMap<>();
+            result.put("millis", millis);
+            return result;
+        }
+
+        @GET("whoami")
+        public Map<String, Object> whoami(@RequestContext Context ctx) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("authorization", ctx.header("Authorization"));
+            result.put("session", ctx.cookie("session"));
+            result.put("userAgent", ctx.header("User-Agent"));
+            return result;
+        }
+
+        @GET("file")
+        public FileResponse file() {
+            return FileResponse.of(Paths.get("pom.xml")).withContentType("text/xml");
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ExecutorService executor;
+    private BatchEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        Javalin app = Javalin.create();
+        app.get("/other", ctx -> ctx.result("not a controller route"));
+        ControllerRegistry registry = new ControllerRegistry();
+        registry.registerController(new BatchedRoutes(), app);
+        executor = Executors.newFixedThreadPool(4);
+        endpoint = new BatchEndpoint(app, executor, 4, 1024, registry::getRegisteredRoutes);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private StubContext batch(String body) {
+        StubContext stub = new StubContext("POST", "/_batch");
+        stub.body = body.getBytes(StandardCharsets.UTF_8);
+        return stub;
+    }
+
+    private JsonNode run(StubContext stub) throws Exception {
+        Context ctx = stub.create();
+        //Javalin only lets endpoint handlers answer with a future, its setter for that is synthetic
+        Context.class.getMethod("setHandlerType$javalin", HandlerType.class).invoke(ctx, HandlerType.POST);
+        endpoint.handle(ctx);
+        return mapper.readTree((String) ctx.resultFuture().get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void answersInRequestOrder() throws Exception {
+        JsonNode responses = run(batch("[{\"path\":\"/batch/slow/300\"},{\"path\":\"/batch/slow/0\"},{\"path\":\"/batch/slow/100\"}]"));
+        assertEquals(3, responses.size());
+        assertEquals(300, responses.get(0).path("body").path("millis").asInt());
+        assertEquals(0, responses.get(1).path("body").path("millis").asInt());
+        assertEquals(100, responses.get(2).path("body").path("millis").asInt());
+        for (JsonNode response : responses) assertEquals(200, response.path("status").asInt());
+    }
+
+    @Test
+    public void answersOtherPathsWith404() throws Exception {
+        JsonNode responses = run(batch("[{\"path\":\"/missing\"},{\"path\":\"/other\"},{\"method\":\"POST\",\"path\":\"/batch/whoami\"},{\"path\":\"/batch/slow/0\"}]"));
+        assertEquals(404, responses.get(0).path("status").asInt());
+        assertEquals(404, responses.get(1).path("status").asInt());
+        assertEquals(404, responses.get(2).path("status").asInt());
+        assertTrue(responses.get(2).path("body").isNull());
+        assertEquals(200, responses.get(3).path("status").asInt());
+    }
+
+    @Test
+    public void answersHeadForFileRoutes() throws Exception {
+        JsonNode responses = run(batch("[{\"method\":\"HEAD\",\"path\":\"/batch/file\"},{\"method\":\"HEAD\",\"path\":\"/batch/whoami\"}]"));
+        assertEquals(200, responses.get(0).path("status").asInt());
+        assertTrue(responses.get(0).path("body").isNull());
+        assertEquals(404, responses.get(1).path("status").asInt());
+    }
+
+    @Test
+    public void subRequestsOnlyGetTheirOwnCredentials() throws Exception {
+        StubContext stub = batch("[{\"path\":\"/batch/whoami\"},{\"path\":\"/batch/whoami\",\"headers\":{\"Authorization\":\"Bearer mine\",\"Cookie\":\"session=abc\"}}]");
+        stub.header("Authorization", "Bearer batch").header("Cookie", "session=batch").header("User-Agent", "test-client");
+        JsonNode responses = run(stub);
+
+        JsonNode inherited = responses.get(0).path("body");
+        assertTrue(inherited.path("authorization").isNull());
+        assertTrue(inherited.path("session").isNull());
+        assertEquals("test-client", inherited.path("userAgent").asText());
+
+        JsonNode declared = responses.get(1).path("body");
+        assertEquals("Bearer mine", declared.path("authorization").asText());
+        assertEquals("abc", declared.path("session").asText());
+    }
+
+    @Test(expected = BadRequestResponse.class)
+    public void refusesMoreThanMaxRequests() throws Exception {
+        run(batch("[{\"path\":\"/a\"},{\"path\":\"/b\"},{\"path\":\"/c\"},{\"path\":\"/d\"},{\"path\":\"/e\"}]"));
+    }
+
+    @Test
+    public void refusesBodiesOverMaxSizeBeforeParsing() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        while (body.length() <= 1024) body.append("{\"path\":\"/batch/slow/0\"},");
+        try {
+            run(batch(body.append("]").toString()));
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(413, e.getStatus());
+        }
+    }
+
+    @Test(expected = BadRequestResponse.class)
+    public void refusesBodiesThatArentArrays() throws Exception {
+        run(batch("{\"path\":\"/batch/slow/0\"}"));
+    }
+
+}
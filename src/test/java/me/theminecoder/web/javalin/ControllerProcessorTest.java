@@ -0,0 +1,124 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.processor.ControllerProcessor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ControllerProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File output;
+
+    private static JavaFileObject source(String className, String source) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    private static String controller(String name, String modifiers) {
+        return "package sample;\n"
+                + "import me.theminecoder.web.javalin.annotations.Controller;\n"
+                + "import me.theminecoder.web.javalin.annotations.methods.GET;\n"
+                + "@Controller(\"" + name.toLowerCase() + "\")\n"
+                + modifiers + " class " + name + " {\n"
+                + "    @GET(\"\")\n"
+                + "    public String get() { return \"" + name + "\"; }\n"
+                + "}\n";
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, String source) throws Exception {
+        output = folder.newFolder();
+        return compile(source(className, source));
+    }
+
+    /**
+     * Compiles into {@link #output}, with anything already compiled there on the class path.
+     */
+    private List<Diagnostic<? extends JavaFileObject>> compile(JavaFileObject... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        String classPath = new File(Controller.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath()
+                + File.pathSeparator + output.getPath();
+        List<String> options = Arrays.asList("-classpath", classPath, "-d", output.getPath(), "-s", output.getPath(),
+                "-processor", ControllerProcessor.class.getName());
+        compiler.getTask(null, null, diagnostics, options, null, Arrays.asList(sources)).call();
+        return diagnostics.getDiagnostics();
+    }
+
+    private List<String> index() throws IOException {
+        File index = new File(output, GeneratedController.INDEX_FILE);
+        return index.exists() ? Files.readAllLines(index.toPath(), StandardCharsets.UTF_8) : Collections.emptyList();
+    }
+
+    private static List<String> errors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        return diagnostics.stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void reportsSeveralRouteAnnotationsOnce() throws Exception {
+        List<String> errors = errors(compile("sample.Mixed", "package sample;\n"
+                + "import me.theminecoder.web.javalin.annotations.Controller;\n"
+                + "import me.theminecoder.web.javalin.annotations.methods.*;\n"
+                + "@Controller(\"mixed\")\n"
+                + "public class Mixed {\n"
+                + "    @Before @GET(\"a\") @After\n"
+                + "    public void mixed() {}\n"
+                + "}\n"));
+
+        assertEquals(Collections.singletonList("Method must have only 1 controller method annotation"), errors);
+        assertFalse(new File(output, "sample/Mixed" + GeneratedController.CLASS_SUFFIX + ".java").exists());
+    }
+
+    @Test
+    public void indexesPublicControllersInOrder() throws Exception {
+        output = folder.newFolder();
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(source("sample.Zebra", controller("Zebra", "public")),
+                source("sample.Apple", controller("Apple", "public")), source("sample.Hidden", controller("Hidden", "")));
+
+        assertEquals(Collections.emptyList(), errors(diagnostics));
+        assertEquals(Arrays.asList("sample.Apple sample.Apple" + GeneratedController.CLASS_SUFFIX,
+                "sample.Zebra sample.Zebra" + GeneratedController.CLASS_SUFFIX), index());
+        assertTrue(diagnostics.stream().anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING
+                && diagnostic.getMessage(null).startsWith("Skipping non public controller")));
+    }
+
+    @Test
+    public void incrementalCompileKeepsEarlierControllers() throws Exception {
+        output = folder.newFolder();
+        compile(source("sample.Apple", controller("Apple", "public")), source("sample.Zebra", controller("Zebra", "public")),
+                source("sample.Pear", controller("Pear", "public")));
+
+        compile(source("sample.Apple", controller("Apple", "public")), source("sample.Pear", controller("Pear", "")));
+        assertEquals(Arrays.asList("sample.Apple sample.Apple" + GeneratedController.CLASS_SUFFIX,
+                "sample.Zebra sample.Zebra" + GeneratedController.CLASS_SUFFIX), index());
+    }
+
+    @Test
+    public void writesNoIndexWithoutControllers() throws Exception {
+        output = folder.newFolder();
+        compile(source("sample.Plain", "package sample;\npublic class Plain {}\n"));
+        assertFalse(new File(output, GeneratedController.INDEX_FILE).exists());
+    }
+
+}
@@ -0,0 +1,87 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import me.theminecoder.web.javalin.annotations.Controller;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ControllerProviderTest {
+
+    public static class Counted {
+    }
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(String name) {
+        }
+    }
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private ControllerProvider provider(Controller.Scope scope) {
+        return ControllerProvider.create(Counted.class, null, scope, type -> {
+            created.incrementAndGet();
+            return new Counted();
+        });
+    }
+
+    private static Context context() {
+        return new StubContext("GET", "/").create();
+    }
+
+    @Test
+    public void singletonIsCreatedOnce() {
+        ControllerProvider provider = provider(Controller.Scope.SINGLETON);
+        assertSame(provider.get(context()), provider.get(context()));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void pooledIsOnePerThread() throws Exception {
+        ControllerProvider provider = provider(Controller.Scope.POOLED);
+        Object first = provider.get(context());
+        assertSame(first, provider.get(context()));
+
+        Object other = CompletableFuture.supplyAsync(() -> provider.get(context()), command -> new Thread(command).start()).get();
+        assertNotSame(first, other);
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void perRequestIsSharedWithinRequest() {
+        ControllerProvider provider = provider(Controller.Scope.PER_REQUEST);
+        Context ctx = context();
+        Object first = provider.get(ctx);
+        assertSame(first, provider.get(ctx));
+        assertNotSame(first, provider.get(context()));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void registeredObjectIsAlwaysUsed() {
+        Counted controller = new Counted();
+        ControllerProvider provider = ControllerProvider.create(Counted.class, controller, Controller.Scope.PER_REQUEST, null);
+        assertSame(controller, provider.get(context()));
+        assertSame(controller, provider.get(context()));
+    }
+
+    @Test
+    public void defaultsToPublicConstructor() {
+        ControllerProvider provider = ControllerProvider.create(Counted.class, null, Controller.Scope.PER_REQUEST, null);
+        assertTrue(provider.get(context()) instanceof Counted);
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void needsConstructorWithoutFactory() {
+        ControllerProvider.create(NoDefaultConstructor.class, null, Controller.Scope.PER_REQUEST, null);
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void rejectsFactoryResultOfWrongType() {
+        ControllerProvider.create(Counted.class, null, Controller.Scope.SINGLETON, type -> "not a controller");
+    }
+
+}
@@ -0,0 +1,112 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ControllerRegistryTest {
+
+    @Controller(value = "first", scope = Controller.Scope.SINGLETON)
+    public static class FirstController {
+
+        @GET("a")
+        public String a() {
+            return "a";
+        }
+
+        @GET("b")
+        public String b() {
+            return "b";
+        }
+    }
+
+    @Controller(value = "second", scope = Controller.Scope.SINGLETON)
+    public static class SecondController {
+
+        @GET("c")
+        public String c(@Query("value") String value) {
+            return value;
+        }
+    }
+
+    @Test
+    public void registeredRoutesAreASnapshot() {
+        ControllerRegistry registry = new ControllerRegistry();
+        registry.registerController(FirstController.class, Javalin.create());
+        List<RegisteredRoute> before = registry.getRegisteredRoutes();
+
+        registry.registerController(SecondController.class, Javalin.create());
+        assertEquals(2, before.size());
+        assertEquals(3, registry.getRegisteredRoutes().size());
+
+        before.clear();
+        assertEquals(3, registry.getRegisteredRoutes().size());
+    }
+
+    @Test
+    public void registriesAreIndependent() throws Exception {
+        ControllerRegistry first = new ControllerRegistry();
+        ControllerRegistry second = new ControllerRegistry();
+        first.registerParameterConverter(StringBuilder.class, StringBuilder::new);
+        first.registerController(FirstController.class, Javalin.create());
+
+        assertTrue(second.getRegisteredRoutes().isEmpty());
+        try {
+            second.getParameterConverter(StringBuilder.class);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            //only registered on the first registry
+        }
+        second.registerParameterConverter(StringBuilder.class, value -> new StringBuilder(value).reverse());
+        assertEquals("cba", second.getParameterConverter(StringBuilder.class).convert("abc").toString());
+        assertEquals("abc", first.getParameterConverter(StringBuilder.class).convert("abc").toString());
+    }
+
+    @Test
+    public void concurrentRegistrationsAreAllPublished() throws Exception {
+        ControllerRegistry registry = new ControllerRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> registrations = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                Class<?> controller = i % 2 == 0 ? FirstController.class : SecondController.class;
+                registrations.add(executor.submit(() -> registry.registerController(controller, Javalin.create())));
+            }
+            for (Future<?> registration : registrations) registration.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8 * 2 + 8, registry.getRegisteredRoutes().size());
+        assertEquals(8 * 2 + 8, registry.getRouteMetrics().size());
+    }
+
+    @Test
+    public void routesOfAControllerArePublishedTogether() throws Exception {
+        ControllerRegistry registry = new ControllerRegistry();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> registering = executor.submit(() -> {
+                for (int i = 0; i < 200; i++) registry.registerController(FirstController.class, Javalin.create());
+            });
+            while (!registering.isDone()) {
+                assertEquals(0, registry.getRegisteredRoutes().size() % 2);
+            }
+            registering.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(400, registry.getRegisteredRoutes().size());
+    }
+
+}
@@ -0,0 +1,102 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class ETagsTest {
+
+    @Test
+    public void hashIsQuotedAndFollowsTheBody() {
+        String etag = ETags.hash("hello");
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, ETags.hash("hello"));
+        assertNotEquals(etag, ETags.hash("hellp"));
+        assertEquals("\"cbf29ce484222325\"", ETags.hash(""));
+    }
+
+    @Test
+    public void quoteDropsInnerQuotes() {
+        assertEquals("\"abc\"", ETags.quote("a\"bc"));
+    }
+
+    @Test
+    public void matchesStrongAndWeakTagsWeakly() {
+        assertTrue(ETags.matches("\"abc\"", "\"abc\""));
+        assertTrue(ETags.matches("W/\"abc\"", "\"abc\""));
+        assertTrue(ETags.matches("\"abc\"", "W/\"abc\""));
+        assertTrue(ETags.matches("W/\"abc\"", "W/\"abc\""));
+        assertFalse(ETags.matches("\"abd\"", "\"abc\""));
+        assertFalse(ETags.matches("abc", "\"abc\""));
+    }
+
+    @Test
+    public void matchesAnyTagOfAList() {
+        assertTrue(ETags.matches("\"x\", \"abc\"", "\"abc\""));
+        assertTrue(ETags.matches("\"x\",W/\"abc\" ,\"y\"", "\"abc\""));
+        assertFalse(ETags.matches("\"x\", \"y\"", "\"abc\""));
+    }
+
+    @Test
+    public void wildcardMatchesAnyTag() {
+        assertTrue(ETags.matches("*", "\"abc\""));
+        assertTrue(ETags.matches("\"x\", *", "W/\"abc\""));
+        assertFalse(ETags.matches("*", null));
+    }
+
+    @Test
+    public void missingHeaderNeverMatches() {
+        assertFalse(ETags.matches(null, "\"abc\""));
+    }
+
+    @Test
+    public void notModifiedSinceComparesSeconds() {
+        Instant lastModified = Instant.parse("2020-01-02T03:04:05.678Z");
+        assertTrue(ETags.notModifiedSince("Thu, 2 Jan 2020 03:04:05 GMT", lastModified));
+        assertTrue(ETags.notModifiedSince("Thu, 2 Jan 2020 04:00:00 GMT", lastModified));
+        assertFalse(ETags.notModifiedSince("Thu, 2 Jan 2020 03:04:04 GMT", lastModified));
+        assertFalse(ETags.notModifiedSince("yesterday", lastModified));
+        assertFalse(ETags.notModifiedSince(null, lastModified));
+        assertFalse(ETags.notModifiedSince("Thu, 2 Jan 2020 03:04:05 GMT", null));
+    }
+
+    @Test
+    public void notModifiedClearsContentType() {
+        StubContext stub = new StubContext("GET", "/versioned").header("If-None-Match", "W/\"1\", \"2\"");
+        assertTrue(ETags.notModified(stub.create(), ConditionalResponse.version(2, () -> "body")));
+        assertEquals(304, stub.status);
+        assertNull(stub.contentType);
+        assertEquals("\"2\"", stub.responseHeaders.get("ETag"));
+    }
+
+    @Test
+    public void modifiedKeepsStatusAndContentType() {
+        StubContext stub = new StubContext("GET", "/versioned").header("If-None-Match", "\"1\"");
+        assertFalse(ETags.notModified(stub.create(), ConditionalResponse.version(2, () -> "body")));
+        assertEquals(200, stub.status);
+        assertEquals("text/plain", stub.contentType);
+    }
+
+    @Test
+    public void onlyGetAndHeadAreConditional() {
+        StubContext stub = new StubContext("POST", "/versioned").header("If-None-Match", "*");
+        assertFalse(ETags.notModified(stub.create(), ConditionalResponse.version(2, () -> "body")));
+        assertEquals(200, stub.status);
+    }
+
+    @Test
+    public void taggedResultIsDroppedWhenCurrent() {
+        StubContext stub = new StubContext("GET", "/etag").header("If-None-Match", ETags.hash("{}"));
+        assertNull(ETags.tag(stub.create(), "{}"));
+        assertEquals(304, stub.status);
+        assertNull(stub.contentType);
+    }
+
+    @Test
+    public void formatsHttpDates() {
+        assertEquals("Thu, 2 Jan 2020 03:04:05 GMT", ETags.formatDate(Instant.parse("2020-01-02T03:04:05.678Z")));
+    }
+
+}
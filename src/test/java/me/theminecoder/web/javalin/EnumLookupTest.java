@@ -0,0 +1,68 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.EnumAlias;
+import me.theminecoder.web.javalin.annotations.EnumSearchType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EnumLookupTest {
+
+    public enum Colour {
+        @EnumAlias({"grey", "GRAY"})
+        GREY,
+        RED
+    }
+
+    @EnumSearchType(EnumSearchType.Type.CASE_INSENSITIVE)
+    public enum Size {
+        @EnumAlias("S")
+        SMALL,
+        LARGE
+    }
+
+    public enum Clashing {
+        FIRST,
+        @EnumAlias("FIRST")
+        SECOND
+    }
+
+    @Test
+    public void findsNamesAndAliases() {
+        EnumLookup lookup = EnumLookup.of(Colour.class);
+        assertEquals(Colour.GREY, lookup.find("GREY"));
+        assertEquals(Colour.GREY, lookup.find("grey"));
+        assertEquals(Colour.GREY, lookup.find("GRAY"));
+        assertEquals(Colour.RED, lookup.find("RED"));
+    }
+
+    @Test
+    public void caseSensitiveByDefault() {
+        EnumLookup lookup = EnumLookup.of(Colour.class);
+        assertNull(lookup.find("red"));
+        assertNull(lookup.find("gray"));
+        assertNull(lookup.find("BLUE"));
+    }
+
+    @Test
+    public void caseInsensitiveAppliesToAliases() {
+        EnumLookup lookup = EnumLookup.of(Size.class);
+        assertEquals(Size.SMALL, lookup.find("small"));
+        assertEquals(Size.SMALL, lookup.find("s"));
+        assertEquals(Size.SMALL, lookup.find("S"));
+        assertEquals(Size.LARGE, lookup.find("Large"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsAliasOfAnotherConstant() {
+        EnumLookup.of(Clashing.class);
+    }
+
+    @Test
+    public void isTheConverterForEnums() {
+        ParameterConverter<Size> converter = new ControllerRegistry().getParameterConverter(Size.class);
+        assertEquals(Size.SMALL, converter.convert("s"));
+        assertNull(converter.convert("medium"));
+    }
+
+}
@@ -0,0 +1,75 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class FileTransferTest {
+
+    @Test
+    public void parsesClosedRange() {
+        assertArrayEquals(new long[]{0, 99}, FileTransfer.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, FileTransfer.parseRange(" bytes=500 - 999 ", 1000));
+    }
+
+    @Test
+    public void clampsEndToFileSize() {
+        assertArrayEquals(new long[]{900, 999}, FileTransfer.parseRange("bytes=900-5000", 1000));
+    }
+
+    @Test
+    public void parsesOpenRange() {
+        assertArrayEquals(new long[]{100, 999}, FileTransfer.parseRange("bytes=100-", 1000));
+        assertArrayEquals(new long[]{999, 999}, FileTransfer.parseRange("bytes=999-", 1000));
+    }
+
+    @Test
+    public void parsesSuffixRange() {
+        assertArrayEquals(new long[]{900, 999}, FileTransfer.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, FileTransfer.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    public void rangesPastTheEndAreUnsatisfiable() {
+        assertEquals(0, FileTransfer.parseRange("bytes=1000-", 1000).length);
+        assertEquals(0, FileTransfer.parseRange("bytes=6000000-", 1000).length);
+        assertEquals(0, FileTransfer.parseRange("bytes=1000-2000", 1000).length);
+        assertEquals(0, FileTransfer.parseRange("bytes=-0", 1000).length);
+        assertEquals(0, FileTransfer.parseRange("bytes=-10", 0).length);
+        assertEquals(0, FileTransfer.parseRange("bytes=0-", 0).length);
+    }
+
+    @Test
+    public void sendsWholeFileForHeadersItDoesntUnderstand() {
+        assertNull(FileTransfer.parseRange("items=0-10", 1000));
+        assertNull(FileTransfer.parseRange("bytes=0-10,20-30", 1000));
+        assertNull(FileTransfer.parseRange("bytes=10", 1000));
+        assertNull(FileTransfer.parseRange("bytes=a-b", 1000));
+        assertNull(FileTransfer.parseRange("bytes=20-10", 1000));
+        assertNull(FileTransfer.parseRange("bytes=--10", 1000));
+    }
+
+    @Test
+    public void ifRangeNeedsStrongMatchingETag() {
+        assertTrue(ETags.rangeApplies(null, "\"abc\"", null));
+        assertTrue(ETags.rangeApplies("\"abc\"", "\"abc\"", null));
+        assertTrue(ETags.rangeApplies(" \"abc\" ", "\"abc\"", null));
+        assertFalse(ETags.rangeApplies("\"abd\"", "\"abc\"", null));
+        assertFalse(ETags.rangeApplies("W/\"abc\"", "W/\"abc\"", null));
+        assertFalse(ETags.rangeApplies("\"abc\"", "W/\"abc\"", null));
+        assertFalse(ETags.rangeApplies("\"abc\"", null, Instant.EPOCH));
+    }
+
+    @Test
+    public void ifRangeNeedsExactLastModified() {
+        Instant lastModified = Instant.parse("2020-01-02T03:04:05.678Z");
+        assertTrue(ETags.rangeApplies("Thu, 2 Jan 2020 03:04:05 GMT", null, lastModified));
+        assertFalse(ETags.rangeApplies("Thu, 2 Jan 2020 03:04:06 GMT", null, lastModified));
+        assertFalse(ETags.rangeApplies("Thu, 2 Jan 2020 03:04:04 GMT", null, lastModified));
+        assertFalse(ETags.rangeApplies("Thu, 2 Jan 2020 03:04:05 GMT", "\"abc\"", null));
+        assertFalse(ETags.rangeApplies("not a date", null, lastModified));
+    }
+
+}
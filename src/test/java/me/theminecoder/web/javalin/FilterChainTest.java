@@ -0,0 +1,71 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FilterChainTest {
+
+    public void filter() {
+    }
+
+    private static ControllerAnalysis.Route filter(Class<? extends Annotation> type, String path) throws NoSuchMethodException {
+        RoutePlan plan = RoutePlan.compile(FilterChainTest.class, FilterChainTest.class.getMethod("filter"), null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+        return new ControllerAnalysis.Route(type, path, plan.getMethod(), plan, null);
+    }
+
+    private static List<RoutePlan> before(FilterChain chain, StubContext stub) {
+        List<RoutePlan> called = new ArrayList<>();
+        chain.before(stub.create(), called::add);
+        return called;
+    }
+
+    @Test
+    public void skipsFiltersThatCantMatch() throws NoSuchMethodException {
+        assertNull(FilterChain.create("/users/:id", Collections.singletonList(filter(Before.class, "/groups/:id"))));
+    }
+
+    @Test
+    public void runsCoveringFiltersWithoutMatching() throws NoSuchMethodException {
+        ControllerAnalysis.Route always = filter(Before.class, "/users/*");
+        FilterChain chain = FilterChain.create("/users/:id", Collections.singletonList(always));
+        assertEquals(Collections.singletonList(always.plan), before(chain, new StubContext("GET", "/anything")));
+    }
+
+    @Test
+    public void matchesSometimesFiltersAgainstRequestPath() throws NoSuchMethodException {
+        ControllerAnalysis.Route me = filter(Before.class, "/users/me");
+        ControllerAnalysis.Route after = filter(After.class, "/users/me");
+        FilterChain chain = FilterChain.create("/users/:id", Arrays.asList(me, after));
+
+        assertEquals(Collections.singletonList(me.plan), before(chain, new StubContext("GET", "/users/me")));
+        assertEquals(Collections.emptyList(), before(chain, new StubContext("GET", "/users/42")));
+
+        List<RoutePlan> called = new ArrayList<>();
+        chain.after(new StubContext("GET", "/users/me/").create(), called::add);
+        assertEquals(Collections.singletonList(after.plan), called);
+    }
+
+    @Test
+    public void matchesWithoutContextPath() throws NoSuchMethodException {
+        ControllerAnalysis.Route me = filter(Before.class, "/users/me");
+        FilterChain chain = FilterChain.create("/users/:id", Collections.singletonList(me));
+
+        StubContext stub = new StubContext("GET", "/api/users/me");
+        stub.contextPath = "/api";
+        assertEquals(Collections.singletonList(me.plan), before(chain, stub));
+
+        stub = new StubContext("GET", "/api/users/42");
+        stub.contextPath = "/api";
+        assertEquals(Collections.emptyList(), before(chain, stub));
+    }
+
+}
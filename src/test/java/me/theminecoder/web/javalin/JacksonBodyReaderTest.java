@@ -0,0 +1,79 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.BadRequestResponse;
+import io.javalin.HttpResponseException;
+import me.theminecoder.web.javalin.annotations.parameters.JsonBody;
+import org.junit.Test;
+
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class JacksonBodyReaderTest {
+
+    public void rows(@JsonBody(streaming = true) Stream<Map<String, Object>> rows,
+                     @JsonBody(streaming = true, maxSize = 16) Iterator<Integer> numbers) {
+    }
+
+    private static Object bind(int index, String body) throws NoSuchMethodException {
+        Parameter parameter = JacksonBodyReaderTest.class.getMethod("rows", Stream.class, Iterator.class).getParameters()[index];
+        ParameterBinder binder = JacksonBodyReader.binder(parameter.getAnnotation(JsonBody.class), parameter.getType(), parameter.getParameterizedType(), false);
+        StubContext stub = new StubContext("POST", "/import");
+        stub.body = body.getBytes(StandardCharsets.UTF_8);
+        return binder.bind(stub.create());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(String body) throws NoSuchMethodException {
+        try (Stream<Map<String, Object>> rows = (Stream<Map<String, Object>>) bind(0, body)) {
+            return rows.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void streamsArrayElements() throws NoSuchMethodException {
+        assertEquals(Arrays.asList(Collections.singletonMap("a", 1), Collections.singletonMap("a", 2)), rows("[{\"a\":1},{\"a\":2}]"));
+        assertEquals(Collections.emptyList(), rows("[]"));
+    }
+
+    @Test(expected = BadRequestResponse.class)
+    public void truncatedArrayIsBadRequest() throws NoSuchMethodException {
+        rows("[{\"a\":1},");
+    }
+
+    @Test(expected = BadRequestResponse.class)
+    public void elementOfWrongTypeIsBadRequest() throws NoSuchMethodException {
+        rows("[{\"a\":1},5]");
+    }
+
+    @Test
+    public void iteratorReportsBadElementsWhenReached() throws NoSuchMethodException {
+        Iterator<?> numbers = (Iterator<?>) bind(1, "[1,\"x\"]");
+        assertEquals(1, numbers.next());
+        try {
+            numbers.next();
+            fail();
+        } catch (BadRequestResponse expected) {
+            //the second element isn't a number
+        }
+    }
+
+    @Test
+    public void bodyOverMaxSizeIsRejected() throws NoSuchMethodException {
+        try {
+            bind(1, "[1,2,3,4,5,6,7,8,9]");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(413, e.getStatus());
+        }
+    }
+
+}
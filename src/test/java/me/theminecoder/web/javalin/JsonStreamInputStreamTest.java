@@ -0,0 +1,91 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Streaming;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamInputStreamTest {
+
+    private static String readAll(InputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunk];
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) != -1) out.write(buffer, 0, read);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static JsonStreamInputStream stream(Streaming.Format format, Object... elements) {
+        return new JsonStreamInputStream(Arrays.asList(elements).iterator(), null, format);
+    }
+
+    @Test
+    public void writesJsonArray() throws IOException {
+        assertEquals("[1,\"two\",{\"three\":3}]", readAll(stream(Streaming.Format.JSON_ARRAY, 1, "two", Collections.singletonMap("three", 3)), 64));
+        assertEquals("[]", readAll(stream(Streaming.Format.JSON_ARRAY), 64));
+    }
+
+    @Test
+    public void writesNdjson() throws IOException {
+        assertEquals("1\n\"two\"\n", readAll(stream(Streaming.Format.NDJSON, 1, "two"), 64));
+        assertEquals("", readAll(stream(Streaming.Format.NDJSON), 64));
+    }
+
+    @Test
+    public void readsTheSameInAnyChunkSize() throws IOException {
+        String expected = readAll(stream(Streaming.Format.JSON_ARRAY, "alpha", "beta", 42), 1024);
+        assertEquals(expected, readAll(stream(Streaming.Format.JSON_ARRAY, "alpha", "beta", 42), 1));
+        assertEquals(expected, readAll(stream(Streaming.Format.JSON_ARRAY, "alpha", "beta", 42), 3));
+
+        JsonStreamInputStream single = stream(Streaming.Format.JSON_ARRAY, "alpha", "beta", 42);
+        StringBuilder bytes = new StringBuilder();
+        int b;
+        while ((b = single.read()) != -1) bytes.append((char) b);
+        assertEquals(expected, bytes.toString());
+    }
+
+    @Test
+    public void pullsElementsOnlyAsTheyAreRead() throws IOException {
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Integer> iterator = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return pulled.incrementAndGet();
+            }
+        };
+
+        JsonStreamInputStream in = new JsonStreamInputStream(iterator, null, Streaming.Format.JSON_ARRAY);
+        assertEquals('[', in.read());
+        assertEquals(0, pulled.get());
+        assertEquals('1', in.read());
+        assertEquals(1, pulled.get());
+        assertEquals(',', in.read());
+        assertEquals(2, pulled.get());
+    }
+
+    @Test
+    public void closingClosesTheSource() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        JsonStreamInputStream in = new JsonStreamInputStream(Arrays.asList(1, 2).iterator(), () -> closed.set(true), Streaming.Format.NDJSON);
+        assertEquals('1', in.read());
+        in.close();
+        assertTrue(closed.get());
+        assertEquals(-1, in.read());
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private static void assertWithinBucket(long expected, long reported) {
+        assertTrue(expected + " reported as " + reported, reported >= expected && reported <= expected + expected / 4);
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 8; value++) histogram.record(value);
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void bucketsAreAtMostAQuarterWide() {
+        long[] values = {5, 9, 17, 100, 1023, 1024, 1025, 123_456, 1_000_000_007L, 1L << 40, (1L << 40) - 1, Long.MAX_VALUE / 3};
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE);
+            assertWithinBucket(value, histogram.getValueAtPercentile(50));
+        }
+    }
+
+    @Test
+    public void percentilesNeverExceedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        assertEquals(1000, histogram.getValueAtPercentile(99.9));
+        assertEquals(1000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getTotalNanos());
+        assertWithinBucket(500_000, histogram.getValueAtPercentile(50));
+        assertWithinBucket(990_000, histogram.getValueAtPercentile(99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentileRankIsntPushedUpByRounding() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) histogram.record(1);
+        histogram.record(1_000_000);
+        assertEquals(1, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getTotalNanos());
+    }
+
+    @Test
+    public void recordsFromSeveralThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 1; i <= 10_000; i++) histogram.record(i);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxNanos());
+        assertEquals(4 * 50_005_000L, histogram.getTotalNanos());
+    }
+
+}
@@ -0,0 +1,131 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Batched;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MicroBatcherTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private final List<List<Integer>> batches = new ArrayList<>();
+
+    @Batched(value = "doubled", maxSize = 2, maxDelay = 1, unit = TimeUnit.HOURS)
+    public void bySize(int id) {
+    }
+
+    @Batched(value = "doubled", maxSize = 100, maxDelay = 1)
+    public void byDelay(int id) {
+    }
+
+    @Batched(value = "failing", maxSize = 2, maxDelay = 1, unit = TimeUnit.HOURS)
+    public void failing(int id) {
+    }
+
+    @Batched(value = "tooFew", maxSize = 2, maxDelay = 1, unit = TimeUnit.HOURS)
+    public void tooFew(int id) {
+    }
+
+    public synchronized List<Integer> doubled(List<Integer> ids) {
+        batches.add(ids);
+        return ids.stream().map(id -> id * 2).collect(Collectors.toList());
+    }
+
+    public List<Integer> failing(List<Integer> ids) {
+        throw new IllegalStateException("backend down");
+    }
+
+    public List<Integer> tooFew(List<Integer> ids) {
+        return ids.subList(1, ids.size());
+    }
+
+    private static MicroBatcher batcher(String method) throws NoSuchMethodException {
+        return MicroBatcher.create(MicroBatcherTest.class.getMethod(method, int.class), 1);
+    }
+
+    @Test
+    public void loadsFullWindowRightAway() throws Exception {
+        MicroBatcher batcher = batcher("bySize");
+        CompletableFuture<Object> first = batcher.load(this, 1, DIRECT);
+        CompletableFuture<Object> again = batcher.load(this, 1, DIRECT);
+        assertFalse(first.isDone());
+
+        CompletableFuture<Object> second = batcher.load(this, 2, DIRECT);
+        assertEquals(2, first.get());
+        assertEquals(2, again.get());
+        assertEquals(4, second.get());
+        assertEquals(1, batches.size());
+        assertEquals(1, batcher.getFullBatchCount());
+        assertEquals(2, batcher.getKeyCount());
+        assertEquals(3, batcher.getRequestCount());
+    }
+
+    @Test
+    public void loadsPartialWindowAfterDelay() throws Exception {
+        MicroBatcher batcher = batcher("byDelay");
+        CompletableFuture<Object> first = batcher.load(this, 1, DIRECT);
+        CompletableFuture<Object> second = batcher.load(this, 2, DIRECT);
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(4, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, batcher.getBatchCount());
+        assertEquals(0, batcher.getFullBatchCount());
+
+        assertEquals(6, batcher.load(this, 3, DIRECT).get(5, TimeUnit.SECONDS));
+        assertEquals(2, batcher.getBatchCount());
+    }
+
+    @Test
+    public void failureReachesEveryRequestOfTheBatch() throws Exception {
+        MicroBatcher batcher = batcher("failing");
+        CompletableFuture<Object> first = batcher.load(this, 1, DIRECT);
+        CompletableFuture<Object> second = batcher.load(this, 2, DIRECT);
+
+        for (CompletableFuture<Object> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("backend down", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void wrongNumberOfResultsFailsTheBatch() throws Exception {
+        MicroBatcher batcher = batcher("tooFew");
+        CompletableFuture<Object> first = batcher.load(this, 1, DIRECT);
+        CompletableFuture<Object> second = batcher.load(this, 2, DIRECT);
+
+        for (CompletableFuture<Object> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof JavalinControllerException);
+            }
+        }
+    }
+
+    @Test
+    public void rejectedWindowFailsItsRequests() throws Exception {
+        MicroBatcher batcher = batcher("bySize");
+        batcher.load(this, 1, DIRECT);
+        CompletableFuture<Object> rejected = batcher.load(this, 2, command -> {
+            throw new RejectedExecutionException("full");
+        });
+        assertTrue(rejected.isCompletedExceptionally());
+        assertTrue(batches.isEmpty());
+    }
+
+}
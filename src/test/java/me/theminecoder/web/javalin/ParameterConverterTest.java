@@ -0,0 +1,68 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ParameterConverterTest {
+
+    private static final UUID ID = UUID.fromString("c0ffee00-0000-4000-8000-000000000001");
+
+    // Not public, so it stays out of the index TestApp registers from
+    @Controller("converted")
+    static class ConvertedController {
+
+        @GET("item/:id")
+        public String item(@Path("id") UUID id, @Query("owner") UUID owner) {
+            return id + " " + owner;
+        }
+    }
+
+    @Test
+    public void convertsRegisteredTypes() throws Exception {
+        List<String> converted = new ArrayList<>();
+        ControllerRegistry registry = new ControllerRegistry();
+        registry.registerParameterConverter(UUID.class, value -> {
+            converted.add(value);
+            return UUID.fromString(value);
+        });
+        Javalin app = Javalin.create();
+        registry.registerController(new ConvertedController(), app);
+
+        StubContext stub = new StubContext("GET", "/converted/item/" + ID);
+        stub.queryString = "owner=" + ID;
+        assertEquals(ID + " " + ID, stub.service(app).output());
+
+        stub = new StubContext("GET", "/converted/item/" + ID);
+        assertEquals(ID + " null", stub.service(app).output());
+        assertEquals(3, converted.size());
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void unknownTypesFailAtRegistration() {
+        new ControllerRegistry().registerController(ConvertedController.class, Javalin.create());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void convertersCantBeReplaced() {
+        new ControllerRegistry().registerParameterConverter(Integer.class, Integer::valueOf);
+    }
+
+    @Test
+    public void primitivesUseTheirWrapperConverter() {
+        ControllerRegistry registry = new ControllerRegistry();
+        assertEquals(42, registry.getParameterConverter(int.class).convert("42").intValue());
+        assertEquals(Boolean.TRUE, registry.getValueToPrimitiveConverter().apply("true", boolean.class));
+        assertNull(registry.getValueToPrimitiveConverter().apply(null, int.class));
+    }
+
+}
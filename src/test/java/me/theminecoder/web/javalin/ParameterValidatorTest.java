@@ -0,0 +1,90 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import me.theminecoder.web.javalin.annotations.parameters.conditions.Regex;
+import org.junit.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParameterValidatorTest {
+
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Even {
+    }
+
+    @Controller("validated")
+    public static class ValidatedController {
+
+        @GET("code")
+        public String code(@Query("code") @Regex("[a-z]{3}") String code) {
+            return code;
+        }
+
+        @GET("even")
+        public String even(@Query("number") @Even Integer number) {
+            return String.valueOf(number);
+        }
+    }
+
+    // Not public, so it stays out of the index TestApp registers from
+    @Controller("broken")
+    static class BrokenController {
+
+        @GET("code")
+        public String code(@Query("code") @Regex("[a-z") String code) {
+            return code;
+        }
+    }
+
+    private static int status(Javalin app, String path, String query) throws Exception {
+        StubContext stub = new StubContext("GET", path);
+        stub.queryString = query;
+        return stub.service(app).status;
+    }
+
+    @Test
+    public void regexMatchesWholeValue() throws Exception {
+        Javalin app = Javalin.create();
+        new ControllerRegistry().registerController(ValidatedController.class, app);
+
+        assertEquals(200, status(app, "/validated/code", "code=abc"));
+        assertEquals(400, status(app, "/validated/code", "code=abcd"));
+        assertEquals(400, status(app, "/validated/code", "code=ABC"));
+        assertEquals(200, status(app, "/validated/code", "code=xyz"));
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void invalidRegexFailsAtRegistration() {
+        new ControllerRegistry().registerController(BrokenController.class, Javalin.create());
+    }
+
+    @Test
+    public void validatorsAreCreatedOncePerParameter() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ControllerRegistry registry = new ControllerRegistry();
+        registry.registerParameterValidatorFactory(Even.class, annotation -> {
+            created.incrementAndGet();
+            return value -> value instanceof Integer && (Integer) value % 2 == 0;
+        });
+
+        Javalin app = Javalin.create();
+        registry.registerController(ValidatedController.class, app);
+        assertEquals(1, created.get());
+
+        assertEquals(200, status(app, "/validated/even", "number=2"));
+        assertEquals(400, status(app, "/validated/even", "number=3"));
+        assertEquals(200, status(app, "/validated/even", "number=4"));
+        assertEquals(1, created.get());
+    }
+
+}
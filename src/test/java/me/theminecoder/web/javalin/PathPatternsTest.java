@@ -0,0 +1,59 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import static me.theminecoder.web.javalin.PathPatterns.Overlap.*;
+import static org.junit.Assert.*;
+
+public class PathPatternsTest {
+
+    @Test
+    public void compiledPatternsMatchLikeJavalin() {
+        assertTrue(PathPatterns.compile("/users/:id").matcher("/users/42").matches());
+        assertTrue(PathPatterns.compile("/users/:id").matcher("/users/42/").matches());
+        assertFalse(PathPatterns.compile("/users/:id").matcher("/users/42/posts").matches());
+        assertFalse(PathPatterns.compile("/users/:id").matcher("/users/").matches());
+        assertTrue(PathPatterns.compile("/files/*").matcher("/files/a/b.txt").matches());
+        assertTrue(PathPatterns.compile("/files/*.txt").matcher("/files/a.txt").matches());
+        assertFalse(PathPatterns.compile("/files/*.txt").matcher("/files/a.png").matches());
+        assertFalse(PathPatterns.compile("/a.b").matcher("/axb").matches());
+    }
+
+    @Test
+    public void wildcardFilterAlwaysCoversRoutes() {
+        assertEquals(ALWAYS, PathPatterns.overlap("*", "/users/:id"));
+        assertEquals(ALWAYS, PathPatterns.overlap("/users/*", "/users/:id/posts"));
+    }
+
+    @Test
+    public void samePathAlwaysOverlaps() {
+        assertEquals(ALWAYS, PathPatterns.overlap("/users", "/users"));
+        assertEquals(ALWAYS, PathPatterns.overlap("/users/:id", "/users/:id"));
+        assertEquals(ALWAYS, PathPatterns.overlap("/users/:name", "/users/:id"));
+    }
+
+    @Test
+    public void parameterFilterAlwaysCoversStaticRoute() {
+        assertEquals(ALWAYS, PathPatterns.overlap("/users/:id", "/users/me"));
+    }
+
+    @Test
+    public void staticFilterSometimesCoversParameterRoute() {
+        assertEquals(SOMETIMES, PathPatterns.overlap("/users/me", "/users/:id"));
+        assertEquals(SOMETIMES, PathPatterns.overlap("/users/:id/posts", "/users/me/:section"));
+    }
+
+    @Test
+    public void wildcardsThatDontCoverRouteAreLeftToTheRequest() {
+        assertEquals(SOMETIMES, PathPatterns.overlap("/admin/*", "/users/:id"));
+        assertEquals(SOMETIMES, PathPatterns.overlap("/users", "/users/*"));
+    }
+
+    @Test
+    public void differentPathsNeverOverlap() {
+        assertEquals(NEVER, PathPatterns.overlap("/groups/:id", "/users/:id"));
+        assertEquals(NEVER, PathPatterns.overlap("/users/:id/posts", "/users/:id"));
+        assertEquals(NEVER, PathPatterns.overlap("/users", "/users/:id"));
+    }
+
+}
@@ -0,0 +1,72 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RequestCoalescerTest {
+
+    @Test
+    public void sharesInFlightCallForEqualArguments() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger leaders = new AtomicInteger();
+        AtomicReference<CompletableFuture<RequestCoalescer.Shared>> leader = new AtomicReference<>();
+
+        CompletableFuture<RequestCoalescer.Shared> first = coalescer.join(new Object[]{"a", 1}, future -> {
+            leaders.incrementAndGet();
+            leader.set(future);
+        });
+        CompletableFuture<RequestCoalescer.Shared> second = coalescer.join(new Object[]{"a", 1}, future -> leaders.incrementAndGet());
+
+        assertEquals(1, leaders.get());
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        RequestCoalescer.Shared shared = new RequestCoalescer.Shared("body", "text/plain", null);
+        leader.get().complete(shared);
+        assertSame(shared, second.join());
+    }
+
+    @Test
+    public void separatesDifferentArguments() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger leaders = new AtomicInteger();
+
+        CompletableFuture<RequestCoalescer.Shared> first = coalescer.join(new Object[]{"a"}, future -> leaders.incrementAndGet());
+        CompletableFuture<RequestCoalescer.Shared> second = coalescer.join(new Object[]{"b"}, future -> leaders.incrementAndGet());
+
+        assertEquals(2, leaders.get());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void startsNewCallOnceCompleted() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CompletableFuture<RequestCoalescer.Shared> first = coalescer.join(new Object[]{"a"}, future -> future.complete(null));
+        AtomicInteger leaders = new AtomicInteger();
+        CompletableFuture<RequestCoalescer.Shared> second = coalescer.join(new Object[]{"a"}, future -> leaders.incrementAndGet());
+
+        assertTrue(first.isDone());
+        assertEquals(1, leaders.get());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void failsCallWhenLeaderThrows() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        IllegalStateException error = new IllegalStateException("leader failed");
+        CompletableFuture<RequestCoalescer.Shared> failed = coalescer.join(new Object[]{"a"}, future -> {
+            throw error;
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        AtomicInteger leaders = new AtomicInteger();
+        coalescer.join(new Object[]{"a"}, future -> leaders.incrementAndGet());
+        assertEquals(1, leaders.get());
+    }
+
+}
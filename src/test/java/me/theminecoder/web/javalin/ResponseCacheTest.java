@@ -0,0 +1,117 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.Cacheable;
+import me.theminecoder.web.javalin.annotations.parameters.Form;
+import me.theminecoder.web.javalin.annotations.parameters.JsonBody;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import me.theminecoder.web.javalin.annotations.parameters.RequestContext;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    private static final Set<Class<? extends Annotation>> MAPPED = new HashSet<>(Arrays.asList(Query.class, Path.class, Form.class, JsonBody.class, RequestContext.class));
+
+    @Cacheable
+    public void allParameters(@Path("id") int id, @Query("page") Optional<Integer> page, @Form("name") String name) {
+    }
+
+    @Cacheable(key = "id")
+    public void explicitKey(@Query("verbose") boolean verbose, @Path("id") int id, @JsonBody Map<String, Object> body) {
+    }
+
+    @Cacheable
+    public void bodyInDefaultKey(@Path("id") int id, @JsonBody Map<String, Object> body) {
+    }
+
+    @Cacheable(key = "missing")
+    public void unknownKey(@Path("id") int id) {
+    }
+
+    @Cacheable(ttl = 1, unit = TimeUnit.NANOSECONDS)
+    public void expiresImmediately(@Path("id") int id) {
+    }
+
+    @Cacheable(maxEntries = 2)
+    public void twoEntries(@Path("id") int id) {
+    }
+
+    private static ResponseCache cache(String name) {
+        for (Method method : ResponseCacheTest.class.getMethods()) {
+            if (method.getName().equals(name)) return ResponseCache.create(method, method.getAnnotation(Cacheable.class), MAPPED);
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void defaultKeyIsEveryRawParameter() {
+        ResponseCache cache = cache("allParameters");
+        assertArrayEquals(new int[]{0, 1, 2}, cache.getKeyParameters());
+        assertArrayEquals(new int[0], cache.getOtherParameters());
+    }
+
+    @Test
+    public void explicitKeyLeavesOtherParametersForTheCall() {
+        ResponseCache cache = cache("explicitKey");
+        assertArrayEquals(new int[]{1}, cache.getKeyParameters());
+        assertArrayEquals(new int[]{0, 2}, cache.getOtherParameters());
+        assertEquals(Arrays.asList((Object) 5), cache.key(new Object[]{true, 5, null}));
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void defaultKeyRejectsBodyParameters() {
+        cache("bodyInDefaultKey");
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void rejectsUnknownKey() {
+        cache("unknownKey");
+    }
+
+    @Test
+    public void keysOnBoundValues() {
+        ResponseCache cache = cache("allParameters");
+        cache.put(cache.key(new Object[]{1, Optional.empty(), "a"}), new byte[0], "application/json", null);
+
+        assertNotNull(cache.get(cache.key(new Object[]{1, Optional.empty(), "a"})));
+        assertNull(cache.get(cache.key(new Object[]{1, Optional.of(2), "a"})));
+        assertNull(cache.get(cache.key(new Object[]{1, Optional.empty(), null})));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void expiredEntriesAreDropped() {
+        ResponseCache cache = cache("expiresImmediately");
+        cache.put(cache.key(new Object[]{1}), new byte[0], "application/json", null);
+        assertNull(cache.get(cache.key(new Object[]{1})));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ResponseCache cache = cache("twoEntries");
+        cache.put(cache.key(new Object[]{1}), new byte[0], "application/json", null);
+        cache.put(cache.key(new Object[]{2}), new byte[0], "application/json", null);
+        assertNotNull(cache.get(cache.key(new Object[]{1})));
+        cache.put(cache.key(new Object[]{3}), new byte[0], "application/json", null);
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(cache.key(new Object[]{1})));
+        assertNull(cache.get(cache.key(new Object[]{2})));
+    }
+
+}
@@ -0,0 +1,153 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.ServiceUnavailableResponse;
+import me.theminecoder.web.javalin.annotations.MaxConcurrent;
+import me.theminecoder.web.javalin.annotations.RateLimit;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RouteLimitsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @RateLimit(permits = 3, per = 3)
+    public void threePerThreeSeconds() {
+    }
+
+    @RateLimit(permits = 2_000_000, per = 1, unit = TimeUnit.MILLISECONDS)
+    public void belowOneNanoInterval() {
+    }
+
+    @MaxConcurrent(2)
+    public void twoAtOnce() {
+    }
+
+    @MaxConcurrent(0)
+    public void noneAtOnce() {
+    }
+
+    @MaxConcurrent(1)
+    @RateLimit(permits = 2, per = 1, unit = TimeUnit.HOURS)
+    public void oneAtOnceTwicePerHour() {
+    }
+
+    private static RouteLimits limits(String method) throws NoSuchMethodException {
+        return RouteLimits.create(RouteLimitsTest.class.getMethod(method));
+    }
+
+    @Test
+    public void allowsBurstOfPermits() throws Exception {
+        RouteLimits limits = limits("threePerThreeSeconds");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = 1000 * SECOND;
+
+        assertEquals(0, limits.tryTake(bucket, now));
+        assertEquals(0, limits.tryTake(bucket, now));
+        assertEquals(0, limits.tryTake(bucket, now));
+        assertEquals(SECOND, limits.tryTake(bucket, now));
+        assertEquals(now + 3 * SECOND, bucket.get());
+    }
+
+    @Test
+    public void refillsOnePermitPerInterval() throws Exception {
+        RouteLimits limits = limits("threePerThreeSeconds");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 3; i++) assertEquals(0, limits.tryTake(bucket, now));
+
+        assertEquals(SECOND / 2, limits.tryTake(bucket, now + SECOND / 2));
+        assertEquals(0, limits.tryTake(bucket, now + SECOND));
+        assertEquals(SECOND, limits.tryTake(bucket, now + SECOND));
+    }
+
+    @Test
+    public void refillsWholeBurstAfterPeriod() throws Exception {
+        RouteLimits limits = limits("threePerThreeSeconds");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 3; i++) assertEquals(0, limits.tryTake(bucket, now));
+
+        long later = now + 10 * SECOND;
+        for (int i = 0; i < 3; i++) assertEquals(0, limits.tryTake(bucket, later));
+        assertTrue(limits.tryTake(bucket, later) > 0);
+    }
+
+    @Test
+    public void rejectionDoesNotTakeAPermit() throws Exception {
+        RouteLimits limits = limits("threePerThreeSeconds");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 3; i++) limits.tryTake(bucket, now);
+
+        long full = bucket.get();
+        assertTrue(limits.tryTake(bucket, now) > 0);
+        assertEquals(full, bucket.get());
+    }
+
+    @Test
+    public void handlesNanoTimeWrapping() throws Exception {
+        RouteLimits limits = limits("threePerThreeSeconds");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = Long.MAX_VALUE - SECOND;
+        for (int i = 0; i < 3; i++) assertEquals(0, limits.tryTake(bucket, now));
+        assertEquals(SECOND, limits.tryTake(bucket, now));
+        assertEquals(0, limits.tryTake(bucket, now + SECOND));
+    }
+
+    @Test
+    public void intervalIsAtLeastOneNano() throws Exception {
+        RouteLimits limits = limits("belowOneNanoInterval");
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        assertEquals(0, limits.tryTake(bucket, 0));
+        assertEquals(1, bucket.get());
+    }
+
+    @Test
+    public void limitsConcurrentRequests() throws Exception {
+        RouteLimits limits = limits("twoAtOnce");
+        limits.acquire(null);
+        limits.acquire(null);
+        try {
+            limits.acquire(null);
+            fail("Third request wasn't rejected");
+        } catch (ServiceUnavailableResponse expected) {
+            assertEquals(1, limits.getConcurrencyRejections());
+        }
+        assertEquals(2, limits.getActiveRequests());
+
+        limits.release();
+        limits.acquire(null);
+        assertEquals(2, limits.getActiveRequests());
+    }
+
+    @Test
+    public void concurrencyRejectionKeepsRateLimitToken() throws Exception {
+        RouteLimits limits = limits("oneAtOnceTwicePerHour");
+        limits.acquire(null);
+        try {
+            limits.acquire(null);
+            fail("Second concurrent request wasn't rejected");
+        } catch (ServiceUnavailableResponse expected) {
+            assertEquals(0, limits.getRateLimitRejections());
+        }
+
+        limits.release();
+        limits.acquire(null);
+        assertEquals(1, limits.getActiveRequests());
+    }
+
+    @Test(expected = JavalinControllerException.class)
+    public void rejectsNonPositiveLimits() throws Exception {
+        limits("noneAtOnce");
+    }
+
+    @Test
+    public void noLimitsWithoutAnnotations() throws Exception {
+        assertNull(limits("noLimitsWithoutAnnotations"));
+    }
+
+}
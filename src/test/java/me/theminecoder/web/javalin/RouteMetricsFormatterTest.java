@@ -0,0 +1,42 @@
+package me.theminecoder.web.javalin;
+
+import me.theminecoder.web.javalin.annotations.methods.Before;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RouteMetricsFormatterTest {
+
+    private static RegisteredRoute route(Class<? extends Annotation> type, String path) throws NoSuchMethodException {
+        return new RegisteredRoute(path, type, Object.class.getMethod("toString"), InvocationStrategy.METHOD_HANDLE, new RouteMetrics(), null, null, null, false);
+    }
+
+    @Test
+    public void formatsStatusCountsPerRoute() throws NoSuchMethodException {
+        RegisteredRoute route = route(GET.class, "/users/:id");
+        route.getMetrics().record(200, 1_000);
+        route.getMetrics().record(404, 1_000);
+        route.getMetrics().record(200, 1_000);
+
+        String formatted = RouteMetricsFormatter.format(Arrays.asList(route));
+        assertTrue(formatted.contains("javalin_route_requests_total{method=\"GET\",path=\"/users/:id\"} 3\n"));
+        assertTrue(formatted.contains("javalin_route_responses_total{method=\"GET\",path=\"/users/:id\",status=\"200\"} 2\n"));
+        assertTrue(formatted.contains("javalin_route_responses_total{method=\"GET\",path=\"/users/:id\",status=\"404\"} 1\n"));
+    }
+
+    @Test
+    public void leavesOutFilters() throws NoSuchMethodException {
+        RegisteredRoute filter = route(Before.class, "/users/*");
+        filter.getMetrics().record(200, 1_000);
+        assertTrue(filter.isFilter());
+
+        String formatted = RouteMetricsFormatter.format(Arrays.asList(filter, route(GET.class, "/users/:id")));
+        assertFalse(formatted.contains("Before"));
+        assertTrue(formatted.contains("path=\"/users/:id\""));
+    }
+
+}
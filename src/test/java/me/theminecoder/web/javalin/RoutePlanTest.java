@@ -0,0 +1,94 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.annotations.Async;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.ETag;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class RoutePlanTest {
+
+    public static abstract class BaseController {
+        public String hello() {
+            return "hello";
+        }
+    }
+
+    @ETag
+    @Async("io")
+    public static class TaggedController extends BaseController {
+    }
+
+    @Async("base")
+    public static abstract class AsyncBaseController {
+        public String hello() {
+            return "hello";
+        }
+    }
+
+    public static class PlainController extends AsyncBaseController {
+    }
+
+    @Controller("plan")
+    public static class SumController {
+
+        @GET("sum/:a")
+        public String sum(@Path("a") int a, @Query("b") int b, @Query("c") Optional<Integer> c) {
+            return String.valueOf(a + b + c.orElse(0));
+        }
+    }
+
+    private static RoutePlan compile(Class<?> controllerClass, Method method) {
+        return RoutePlan.compile(controllerClass, method, null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    @Test
+    public void classAnnotationsComeFromRegisteredController() throws NoSuchMethodException {
+        Method hello = BaseController.class.getMethod("hello");
+        assertTrue(compile(TaggedController.class, hello).isETag());
+        assertEquals("io", RoutePlan.classAnnotation(TaggedController.class, hello, Async.class).value());
+        assertFalse(compile(BaseController.class, hello).isETag());
+    }
+
+    @Test
+    public void classAnnotationsFallBackToDeclaringClass() throws NoSuchMethodException {
+        Method hello = AsyncBaseController.class.getMethod("hello");
+        assertEquals("base", RoutePlan.classAnnotation(PlainController.class, hello, Async.class).value());
+        assertNull(RoutePlan.classAnnotation(PlainController.class, hello, ETag.class));
+    }
+
+    @Test
+    public void bindsParametersInMethodOrder() throws Exception {
+        Javalin app = Javalin.create();
+        ControllerRegistry registry = new ControllerRegistry();
+        registry.registerController(SumController.class, app);
+
+        StubContext stub = new StubContext("GET", "/plan/sum/1");
+        stub.queryString = "c=3&b=2";
+        assertEquals("6", stub.service(app).output());
+
+        stub = new StubContext("GET", "/plan/sum/1");
+        stub.queryString = "b=2";
+        assertEquals("3", stub.service(app).output());
+    }
+
+    @Test
+    public void compilesOneSlotPerParameter() throws NoSuchMethodException {
+        Method sum = SumController.class.getMethod("sum", int.class, int.class, Optional.class);
+        RoutePlan plan = RoutePlan.compile(SumController.class, sum, null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+        assertArrayEquals(new int[]{0, 1, 2}, plan.getAllParameters());
+        assertEquals(3, plan.newArguments().length);
+        assertFalse(plan.isPipeline());
+        assertEquals(InvocationStrategy.LAMBDA, plan.getInvocationStrategy());
+    }
+
+}
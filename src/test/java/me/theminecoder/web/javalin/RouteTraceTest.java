@@ -0,0 +1,98 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Javalin;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Query;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RouteTraceTest {
+
+    @Controller(value = "traced", scope = Controller.Scope.SINGLETON)
+    public static class TracedController {
+
+        @GET("sleep")
+        public String sleep(@Query("millis") int millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return "slept";
+        }
+    }
+
+    private final List<RouteTrace> traces = Collections.synchronizedList(new ArrayList<>());
+    private ControllerRegistry registry;
+    private Javalin app;
+
+    @Before
+    public void setUp() {
+        registry = new ControllerRegistry();
+        app = Javalin.create();
+        registry.registerController(TracedController.class, app);
+    }
+
+    private void sleep(int millis) throws Exception {
+        StubContext stub = new StubContext("GET", "/traced/sleep");
+        stub.queryString = "millis=" + millis;
+        assertEquals("slept", stub.service(app).output());
+    }
+
+    @Test
+    public void tracesPhasesOfARequest() throws Exception {
+        registry.addTraceListener(traces::add);
+        sleep(20);
+
+        assertEquals(1, traces.size());
+        RouteTrace trace = traces.get(0);
+        assertEquals("/traced/sleep", trace.getRoute().getPath());
+        assertEquals("/traced/sleep", trace.getRequestPath());
+        assertEquals(Collections.singletonList("@Query(millis)"), trace.getParameterNames());
+        assertEquals(200, trace.getStatus());
+        assertTrue(trace.getPhaseNanos(RouteTrace.Phase.INVOKE) >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        long phases = 0;
+        for (RouteTrace.Phase phase : RouteTrace.Phase.values()) phases += trace.getPhaseNanos(phase);
+        assertTrue(trace.getTotalNanos() >= phases);
+    }
+
+    @Test
+    public void samplesNothingAtZero() throws Exception {
+        registry.addTraceListener(traces::add);
+        registry.setTraceSampleRate(0);
+        for (int i = 0; i < 10; i++) sleep(0);
+        assertTrue(traces.isEmpty());
+        assertEquals(10, registry.getRouteMetrics().values().iterator().next().getRequestCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSampleRateAboveOne() {
+        registry.setTraceSampleRate(1.5);
+    }
+
+    @Test
+    public void failingListenerDoesntFailTheRequest() throws Exception {
+        registry.addTraceListener(trace -> {
+            throw new IllegalStateException("listener broke");
+        });
+        registry.addTraceListener(traces::add);
+        sleep(0);
+        assertEquals(1, traces.size());
+    }
+
+    @Test
+    public void removedListenerIsntCalled() throws Exception {
+        RouteTraceListener listener = traces::add;
+        registry.addTraceListener(listener);
+        sleep(0);
+        registry.removeTraceListener(listener);
+        sleep(0);
+        assertEquals(1, traces.size());
+    }
+
+}
@@ -0,0 +1,124 @@
+package me.theminecoder.web.javalin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RouteTreeTest {
+
+    @Test
+    public void matchesStaticPaths() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/", "root");
+        tree.add("/users", "users");
+        tree.add("/users/all", "all");
+        tree.add("/uploads", "uploads");
+
+        assertEquals("root", tree.find("/").getValue());
+        assertEquals("users", tree.find("/users").getValue());
+        assertEquals("all", tree.find("/users/all").getValue());
+        assertEquals("uploads", tree.find("/uploads").getValue());
+        assertNull(tree.find("/user"));
+        assertNull(tree.find("/users/al"));
+        assertNull(tree.find("/users/all/more"));
+    }
+
+    @Test
+    public void extractsParameters() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/users/:id/items/:item", "item");
+
+        RouteTree.Match<String> match = tree.find("/users/42/items/a%20b");
+        assertEquals("item", match.getValue());
+        assertEquals(2, match.getParameterCount());
+        assertEquals("id", match.getParameterName(0));
+        assertEquals("42", match.getParameterValue(0));
+        assertEquals("item", match.getParameterName(1));
+        assertEquals("a%20b", match.getParameterValue(1));
+    }
+
+    @Test
+    public void parametersDontMatchEmptySegments() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/users/:id", "user");
+
+        assertNull(tree.find("/users/"));
+        assertNull(tree.find("/users//"));
+        assertNull(tree.find("/users/42/"));
+    }
+
+    @Test
+    public void prefersStaticText() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/users/:id", "user");
+        tree.add("/users/me", "me");
+
+        assertEquals("me", tree.find("/users/me").getValue());
+        assertEquals("user", tree.find("/users/men").getValue());
+        assertEquals("men", tree.find("/users/men").getParameterValue(0));
+    }
+
+    @Test
+    public void backtracksToParameter() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/users/me/settings", "settings");
+        tree.add("/users/:id/posts", "posts");
+
+        assertEquals("settings", tree.find("/users/me/settings").getValue());
+        RouteTree.Match<String> match = tree.find("/users/me/posts");
+        assertEquals("posts", match.getValue());
+        assertEquals("me", match.getParameterValue(0));
+        assertNull(tree.find("/users/me/other"));
+    }
+
+    @Test
+    public void backtracksThroughNestedParameters() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/a/:x/b/c", "static");
+        tree.add("/a/:x/:y/d", "nested");
+
+        assertEquals("static", tree.find("/a/1/b/c").getValue());
+        RouteTree.Match<String> match = tree.find("/a/1/b/d");
+        assertEquals("nested", match.getValue());
+        assertEquals("1", match.getParameterValue(0));
+        assertEquals("b", match.getParameterValue(1));
+    }
+
+    @Test
+    public void ignoresCaseUnlessCaseSensitive() {
+        RouteTree<String> insensitive = new RouteTree<>(false);
+        insensitive.add("/Users/:id", "user");
+        RouteTree.Match<String> match = insensitive.find("/USERS/Bob");
+        assertEquals("user", match.getValue());
+        assertEquals("Bob", match.getParameterValue(0));
+
+        RouteTree<String> sensitive = new RouteTree<>(true);
+        sensitive.add("/Users/:id", "user");
+        assertNull(sensitive.find("/users/Bob"));
+        assertEquals("user", sensitive.find("/Users/Bob").getValue());
+    }
+
+    @Test
+    public void keepsFirstRouteOfTheSameShape() {
+        RouteTree<String> tree = new RouteTree<>(true);
+        tree.add("/users/:id", "first");
+        tree.add("/users/:name", "second");
+
+        RouteTree.Match<String> match = tree.find("/users/42");
+        assertEquals("first", match.getValue());
+        assertEquals("id", match.getParameterName(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicatePaths() {
+        RouteTree<String> tree = new RouteTree<>(false);
+        tree.add("/users", "first");
+        tree.add("/USERS", "second");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWildcards() {
+        new RouteTree<String>(true).add("/files/*", "files");
+    }
+
+}
@@ -0,0 +1,195 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import io.javalin.Javalin;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A Javalin context over a request and response that only hold a method, path, headers, body and status, for testing
+ * code that needs a context without running a server. Can also be sent through an app's servlet.
+ */
+final class StubContext {
+
+    String method = "GET";
+    String contextPath = "";
+    String requestUri = "/";
+    String queryString;
+    final Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    byte[] body = new byte[0];
+    final Map<String, Object> attributes = new HashMap<>();
+
+    int status = 200;
+    String contentType = "text/plain";
+    final Map<String, String> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    StubContext(String method, String requestUri) {
+        this.method = method;
+        this.requestUri = requestUri;
+    }
+
+    StubContext header(String name, String value) {
+        requestHeaders.put(name, value);
+        return this;
+    }
+
+    Context create() {
+        return new Context(request(), response(), Javalin.create());
+    }
+
+    /**
+     * Sends the request through the servlet of an app, the response body ends up in {@link #output}.
+     */
+    StubContext service(Javalin app) throws Exception {
+        app.createServlet().service(request(), response());
+        return this;
+    }
+
+    String output() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    HttpServletRequest request() {
+        return (HttpServletRequest) Proxy.newProxyInstance(StubContext.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, called, args) -> {
+                    switch (called.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getContextPath":
+                            return contextPath;
+                        case "getRequestURI":
+                            return requestUri;
+                        case "getQueryString":
+                            return queryString;
+                        case "getHeader":
+                            return requestHeaders.get((String) args[0]);
+                        case "getHeaderNames":
+                            return Collections.enumeration(requestHeaders.keySet());
+                        case "getLocales":
+                            return Collections.emptyEnumeration();
+                        case "getContentLength":
+                            return body.length;
+                        case "getContentLengthLong":
+                            return (long) body.length;
+                        case "getInputStream":
+                            return inputStream(new ByteArrayInputStream(body));
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        default:
+                            return defaultValue(called);
+                    }
+                });
+    }
+
+    HttpServletResponse response() {
+        return (HttpServletResponse) Proxy.newProxyInstance(StubContext.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, called, args) -> {
+                    switch (called.getName()) {
+                        case "setStatus":
+                            status = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return status;
+                        case "setHeader":
+                        case "addHeader":
+                            responseHeaders.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "getHeader":
+                            return responseHeaders.get((String) args[0]);
+                        case "setContentType":
+                            contentType = (String) args[0];
+                            return null;
+                        case "getContentType":
+                            return contentType;
+                        case "getCharacterEncoding":
+                            return "UTF-8";
+                        case "getOutputStream":
+                            return outputStream();
+                        default:
+                            return defaultValue(called);
+                    }
+                });
+    }
+
+    private ServletOutputStream outputStream() {
+        return new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                output.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static ServletInputStream inputStream(InputStream body) {
+        return new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return body.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return body.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return false;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+
+}
@@ -0,0 +1,95 @@
+package me.theminecoder.web.javalin;
+
+import io.javalin.Context;
+import io.javalin.Javalin;
+import io.javalin.NotFoundResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TreeDispatcherTest {
+
+    @Test
+    public void supportsTheJavalinItIsBuiltAgainst() {
+        TreeDispatcher.checkSupported();
+        TreeDispatcher.create(Javalin.create());
+    }
+
+    @Test
+    public void mountsUnderSharedStaticPrefix() {
+        TreeDispatcher dispatcher = new TreeDispatcher(false, true);
+        dispatcher.add("/api/users/:id", ctx -> {
+        });
+        dispatcher.add("/api/users/:id/posts", ctx -> {
+        });
+        dispatcher.add("/api/users", ctx -> {
+        });
+        assertEquals(Arrays.asList("/api/users/*", "/api/users"), dispatcher.getMountPaths());
+
+        dispatcher.add("/api/groups", ctx -> {
+        });
+        assertEquals(Collections.singletonList("/api/*"), dispatcher.getMountPaths());
+    }
+
+    @Test
+    public void mountsAtRootWithoutSharedPrefix() {
+        TreeDispatcher dispatcher = new TreeDispatcher(false, true);
+        dispatcher.add("/:id", ctx -> {
+        });
+        dispatcher.add("/users", ctx -> {
+        });
+        assertEquals(Collections.singletonList("/*"), dispatcher.getMountPaths());
+    }
+
+    @Test
+    public void fillsInDecodedPathParameters() throws Exception {
+        AtomicReference<String> name = new AtomicReference<>();
+        TreeDispatcher dispatcher = new TreeDispatcher(false, true);
+        dispatcher.add("/api/users/:name", ctx -> name.set(ctx.pathParam("name")));
+
+        dispatcher.handle(context("/app", "/app/api/users/a%20b/"));
+        assertEquals("a b", name.get());
+    }
+
+    @Test(expected = NotFoundResponse.class)
+    public void notFoundUnderMountPrefix() throws Exception {
+        TreeDispatcher dispatcher = new TreeDispatcher(false, true);
+        dispatcher.add("/api/users/:id", ctx -> fail("Matched " + ctx.path()));
+        dispatcher.add("/api/users/:id/posts", ctx -> fail("Matched " + ctx.path()));
+
+        dispatcher.handle(context("", "/api/users/42/comments"));
+    }
+
+    @Test(expected = NotFoundResponse.class)
+    public void notFoundWithTrailingSlashWhenNotIgnored() throws Exception {
+        TreeDispatcher dispatcher = new TreeDispatcher(false, false);
+        dispatcher.add("/api/users/:id", ctx -> fail("Matched " + ctx.path()));
+
+        dispatcher.handle(context("", "/api/users/42/"));
+    }
+
+    private static Context context(String contextPath, String requestUri) {
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(TreeDispatcherTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getContextPath":
+                            return contextPath;
+                        case "getRequestURI":
+                            return requestUri;
+                        default:
+                            return null;
+                    }
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(TreeDispatcherTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> null);
+        return new Context(request, response, Javalin.create());
+    }
+
+}
@@ -0,0 +1,29 @@
+package test;
+
+import me.theminecoder.web.javalin.annotations.Batched;
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Controller(value = "test", scope = Controller.Scope.SINGLETON)
+public class BatchedController {
+
+    @Batched(value = "loadItems", maxDelay = 20)
+    @GET("item/:id")
+    public Map<String, Object> itemTest(@Path("id") int id) {
+        throw new IllegalStateException("Loaded through loadItems");
+    }
+
+    public List<Map<String, Object>> loadItems(List<Integer> ids) {
+        System.out.println("Loading items " + ids);
+        List<Map<String, Object>> items = new ArrayList<>(ids.size());
+        for (Integer id : ids) items.add(Collections.singletonMap("id", id));
+        return items;
+    }
+
+}
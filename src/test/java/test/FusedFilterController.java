@@ -0,0 +1,38 @@
+package test;
+
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.RateLimit;
+import me.theminecoder.web.javalin.annotations.methods.After;
+import me.theminecoder.web.javalin.annotations.methods.Before;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+
+@Controller(value = "fused", fuseFilters = true)
+public class FusedFilterController {
+
+    private String user;
+
+    @Before("*")
+    public void beforeFused() {
+        user = "guest";
+        System.out.println("Fused before has been called");
+    }
+
+    @After("*")
+    public void afterFused() {
+        System.out.println("Fused after has been called for " + user);
+    }
+
+    @GET("hello/:name")
+    public String helloTest(@Path("name") String name) {
+        user = name;
+        return "Hello " + name;
+    }
+
+    @RateLimit(permits = 2, per = 10)
+    @GET("limited")
+    public String rateLimitTest() {
+        return "Hello " + user;
+    }
+
+}
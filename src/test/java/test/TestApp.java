@@ -2,6 +2,11 @@ package test;
 
 import io.javalin.Javalin;
 import me.theminecoder.web.javalin.JavalinController;
+import me.theminecoder.web.javalin.SlowRequestLogger;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class TestApp {
 
@@ -11,7 +16,12 @@ public class TestApp {
             ctx.status(404).result("Not Found");
             ex.printStackTrace();
         });
-        JavalinController.registerController(TestController.class, app);
+        JavalinController.registerParameterConverter(UUID.class, UUID::fromString);
+        JavalinController.registerExecutor("io", Executors.newFixedThreadPool(4));
+        JavalinController.registerControllers(app).forEach(System.out::println);
+        JavalinController.registerMetricsEndpoint(app, "/metrics");
+        JavalinController.registerBatchEndpoint(app, "/_batch");
+        JavalinController.addTraceListener(new SlowRequestLogger(100, TimeUnit.MILLISECONDS));
     }
 
 }
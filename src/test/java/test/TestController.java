@@ -1,18 +1,40 @@
 package test;
 
 import io.javalin.Context;
+import me.theminecoder.web.javalin.ConditionalResponse;
+import me.theminecoder.web.javalin.FileResponse;
 import me.theminecoder.web.javalin.View;
+import me.theminecoder.web.javalin.annotations.Async;
+import me.theminecoder.web.javalin.annotations.Cacheable;
+import me.theminecoder.web.javalin.annotations.Coalesce;
+import me.theminecoder.web.javalin.annotations.ETag;
+import me.theminecoder.web.javalin.annotations.MaxConcurrent;
+import me.theminecoder.web.javalin.annotations.RateLimit;
 import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.EnumAlias;
+import me.theminecoder.web.javalin.annotations.EnumSearchType;
+import me.theminecoder.web.javalin.annotations.Streaming;
 import me.theminecoder.web.javalin.annotations.methods.After;
 import me.theminecoder.web.javalin.annotations.methods.Before;
 import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.methods.POST;
+import me.theminecoder.web.javalin.annotations.parameters.JsonBody;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
 import me.theminecoder.web.javalin.annotations.parameters.Query;
 import me.theminecoder.web.javalin.annotations.parameters.RequestContext;
 import me.theminecoder.web.javalin.annotations.parameters.conditions.NotNull;
 import me.theminecoder.web.javalin.annotations.parameters.conditions.Range;
 import me.theminecoder.web.javalin.annotations.parameters.conditions.Regex;
 
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Controller("test")
 public class TestController extends ParentTestController {
@@ -50,9 +72,116 @@ public class TestController extends ParentTestController {
         return "Hello " + who + ". Number is " + test;
     }
 
+    @GET("sort")
+    public String sortTest(@Query("order") @NotNull SortOrder order) {
+        return "Sorting " + order;
+    }
+
+    @GET("uuid/:id")
+    public String uuidTest(@Path("id") UUID id) {
+        return "Version " + id.version();
+    }
+
+    @Cacheable(ttl = 30, maxEntries = 100, key = "id")
+    @GET("cached/:id")
+    public Map<String, Object> cachedTest(@Path("id") int id, @Query("verbose") Optional<Boolean> verbose) {
+        System.out.println("Computing cached response for " + id);
+        return Collections.singletonMap("id", id);
+    }
+
+    @ETag
+    @GET("etag")
+    public Map<String, String> etagTest(@Query("name") String name) {
+        return Collections.singletonMap("hello", name);
+    }
+
+    @GET("versioned/:version")
+    public ConditionalResponse versionedTest(@Path("version") int version) {
+        return ConditionalResponse.version(version, () -> {
+            System.out.println("Building versioned response " + version);
+            return Collections.singletonMap("version", version);
+        });
+    }
+
+    @RateLimit(permits = 3, per = 10, key = RateLimit.Key.PARAMETER, parameter = "user")
+    @GET("limited")
+    public String rateLimitTest(@Query("user") String user) {
+        return "Hello " + user;
+    }
+
+    @MaxConcurrent(1)
+    @GET("slow")
+    public String slowTest() throws InterruptedException {
+        Thread.sleep(500);
+        return "Done";
+    }
+
+    @Coalesce
+    @GET("coalesced/:id")
+    public Map<String, Object> coalescedTest(@Path("id") int id) throws InterruptedException {
+        System.out.println("Computing coalesced response for " + id);
+        Thread.sleep(500);
+        return Collections.singletonMap("id", id);
+    }
+
+    @GET("future")
+    public CompletableFuture<Map<String, String>> futureTest(@Query("name") String name) {
+        return CompletableFuture.supplyAsync(() -> Collections.singletonMap("hello", name));
+    }
+
+    @Async("io")
+    @GET("async")
+    public View asyncTest(@Query("data") @NotNull String data) {
+        return new View("testdata.mustache").withData("test", Thread.currentThread().getName()).withData("data", data);
+    }
+
+    @Async
+    @GET("async-default")
+    public String asyncDefaultTest() {
+        return "Running on " + Thread.currentThread().getName();
+    }
+
+    @GET("stream")
+    public Stream<Map<String, Integer>> streamTest(@Query(value = "count", defaultValue = "10") int count) {
+        return IntStream.range(0, count).mapToObj(i -> Collections.singletonMap("row", i));
+    }
+
+    @Streaming(Streaming.Format.NDJSON)
+    @GET("ndjson")
+    public Iterator<Integer> ndjsonTest(@Query(value = "count", defaultValue = "10") int count) {
+        return IntStream.range(0, count).iterator();
+    }
+
+    @POST("import")
+    public String importTest(@JsonBody(streaming = true, maxSize = 1024 * 1024) Stream<Map<String, Object>> rows) {
+        try (Stream<Map<String, Object>> closingRows = rows) {
+            return "Imported " + closingRows.count() + " rows";
+        }
+    }
+
+    @GET("file")
+    public FileResponse file() {
+        return FileResponse.of(Paths.get("pom.xml")).withContentType("text/xml").asAttachment("pom.xml");
+    }
+
     @GET("err")
     public void exceptionTest() {
         throw new NullPointerException("test");
     }
 
+    @GET("async-err")
+    public CompletableFuture<String> asyncExceptionTest() {
+        return CompletableFuture.supplyAsync(() -> {
+            throw new NullPointerException("test");
+        });
+    }
+
+    @EnumSearchType(EnumSearchType.Type.CASE_INSENSITIVE)
+    public enum SortOrder {
+        @EnumAlias("asc")
+        ASCENDING,
+        @EnumAlias("desc")
+        DESCENDING
+    }
+
 }
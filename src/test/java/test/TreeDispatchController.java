@@ -0,0 +1,30 @@
+package test;
+
+import me.theminecoder.web.javalin.annotations.Controller;
+import me.theminecoder.web.javalin.annotations.methods.GET;
+import me.theminecoder.web.javalin.annotations.parameters.Path;
+
+@Controller(value = "tree", treeDispatch = true)
+public class TreeDispatchController {
+
+    @GET
+    public String index() {
+        return "Tree index";
+    }
+
+    @GET("users/me")
+    public String me() {
+        return "Current user";
+    }
+
+    @GET("users/:id")
+    public String user(@Path("id") String id) {
+        return "User " + id;
+    }
+
+    @GET("users/:id/posts/:post")
+    public String post(@Path("id") String id, @Path("post") int post) {
+        return "Post " + post + " of user " + id;
+    }
+
+}